@@ -24,6 +24,7 @@ import com.spatial4j.core.distance.CartesianDistCalc;
 import com.spatial4j.core.distance.DistanceCalculator;
 import com.spatial4j.core.distance.DistanceUtils;
 import com.spatial4j.core.distance.GeodesicSphereDistCalc;
+import com.spatial4j.core.distance.NVectorDistCalc;
 import com.spatial4j.core.exception.InvalidShapeException;
 import com.spatial4j.core.io.BinaryCodec;
 import com.spatial4j.core.io.LegacyShapeWriter;
@@ -31,13 +32,18 @@ import com.spatial4j.core.io.SupportedFormats;
 import com.spatial4j.core.io.WKTReader;
 import com.spatial4j.core.shape.Circle;
 import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.PreparedQuery;
 import com.spatial4j.core.shape.Rectangle;
 import com.spatial4j.core.shape.Shape;
 import com.spatial4j.core.shape.ShapeCollection;
 import com.spatial4j.core.shape.impl.BufferedLineString;
 import com.spatial4j.core.shape.impl.CircleImpl;
 import com.spatial4j.core.shape.impl.GeoCircle;
+import com.spatial4j.core.shape.impl.MultiPoint;
+import com.spatial4j.core.shape.impl.NVectorPoint;
 import com.spatial4j.core.shape.impl.PointImpl;
+import com.spatial4j.core.shape.impl.PreparedGeoCircle;
+import com.spatial4j.core.shape.impl.PreparedRectangle;
 import com.spatial4j.core.shape.impl.RectangleImpl;
 
 /**
@@ -200,10 +206,15 @@ public class SpatialContext {
       throw new InvalidShapeException("Bad Y value "+y+" is not in boundary "+bounds);
   }
 
-  /** Construct a point. */
+  /**
+   * Construct a point. It's an {@link NVectorPoint} if the calculator is an {@link
+   * NVectorDistCalc}.
+   */
   public Point makePoint(double x, double y) {
     verifyX(x);
     verifyY(y);
+    if (isGeo() && calculator instanceof NVectorDistCalc)
+      return new NVectorPoint(x, y, this);
     return new PointImpl(x, y, this);
   }
 
@@ -281,11 +292,54 @@ public class SpatialContext {
     return new BufferedLineString(points, buf, isGeo(), this);
   }
 
-  /** Construct a ShapeCollection, analogous to an OGC GeometryCollection. */
+  /**
+   * Construct a ShapeCollection, analogous to an OGC GeometryCollection. The parsers build
+   * collections with {@link #newCollectionBuilder()} instead, so override that too.
+   */
   public <S extends Shape> ShapeCollection<S> makeCollection(List<S> coll) {
     return new ShapeCollection<S>(coll, this);
   }
 
+  /**
+   * A builder of a ShapeCollection that computes the bounding box as shapes are added. The
+   * parsers use this to build collections; override it to control what they build.
+   */
+  public <S extends Shape> ShapeCollection.Builder<S> newCollectionBuilder() {
+    return new ShapeCollection.Builder<S>(this);
+  }
+
+  /**
+   * Construct a MultiPoint from parallel coordinate arrays.
+   * @param xs Copied by reference!
+   * @param ys Copied by reference! Same length as xs.
+   */
+  public MultiPoint makeMultiPoint(double[] xs, double[] ys) {
+    if (xs.length != ys.length)
+      throw new IllegalArgumentException("xs and ys lengths differ: " + xs.length + " " + ys.length);
+    for (int i = 0; i < xs.length; i++) {
+      verifyX(xs[i]);
+      verifyY(ys[i]);
+    }
+    return new MultiPoint(xs, ys, this);
+  }
+
+  /**
+   * Prepares {@code query} to be related to many candidate shapes. A {@link GeoCircle} or {@link
+   * RectangleImpl} query is replaced by an equal {@link PreparedGeoCircle} or {@link
+   * PreparedRectangle}.
+   * @see PreparedQuery
+   */
+  public PreparedQuery prepareQuery(Shape query) {
+    if (query.getClass() == GeoCircle.class) {
+      Circle circle = (Circle) query;
+      Point center = circle.getCenter();
+      query = new PreparedGeoCircle(makePoint(center.getX(), center.getY()), circle.getRadius(), this);
+    } else if (query.getClass() == RectangleImpl.class) {
+      query = new PreparedRectangle((Rectangle) query, this);
+    }
+    return new PreparedQuery(query);
+  }
+
   /** The {@link com.spatial4j.core.io.WKTReader} used by {@link #readShapeFromWkt(String)}. */
   @Deprecated
   public WKTReader getWktShapeParser() {
@@ -20,6 +20,7 @@ package com.spatial4j.core.context;
 import com.spatial4j.core.distance.CartesianDistCalc;
 import com.spatial4j.core.distance.DistanceCalculator;
 import com.spatial4j.core.distance.GeodesicSphereDistCalc;
+import com.spatial4j.core.distance.NVectorDistCalc;
 import com.spatial4j.core.io.*;
 import com.spatial4j.core.shape.Rectangle;
 
@@ -43,7 +44,7 @@ import java.util.*;
  * <DT>geo</DT>
  * <DD>true (default)| false -- see {@link SpatialContext#isGeo()} </DD>
  * <DT>distCalculator</DT>
- * <DD>haversine | lawOfCosines | vincentySphere | cartesian | cartesian^2
+ * <DD>haversine | lawOfCosines | vincentySphere | equirectangular | nVector | cartesian | cartesian^2
  * -- see {@link DistanceCalculator}</DD>
  * <DT>worldBounds</DT>
  * <DD>{@code ENVELOPE(xMin, xMax, yMax, yMin)} -- see {@link SpatialContext#getWorldBounds()}</DD>
@@ -145,6 +146,8 @@ public class SpatialContextFactory {
         Object o;
         if (field.getType() == Boolean.TYPE) {
           o = Boolean.valueOf(str);
+        } else if (field.getType() == Integer.TYPE) {
+          o = Integer.valueOf(str);
         } else if (field.getType() == Class.class) {
           try {
             o = classLoader.loadClass(str);
@@ -176,6 +179,10 @@ public class SpatialContextFactory {
       distCalc = new GeodesicSphereDistCalc.LawOfCosines();
     } else if (calcStr.equalsIgnoreCase("vincentySphere")) {
       distCalc = new GeodesicSphereDistCalc.Vincenty();
+    } else if (calcStr.equalsIgnoreCase("equirectangular")) {
+      distCalc = new GeodesicSphereDistCalc.Equirectangular();
+    } else if (calcStr.equalsIgnoreCase("nVector")) {
+      distCalc = new NVectorDistCalc();
     } else if (calcStr.equalsIgnoreCase("cartesian")) {
       distCalc = new CartesianDistCalc();
     } else if (calcStr.equalsIgnoreCase("cartesian^2")) {
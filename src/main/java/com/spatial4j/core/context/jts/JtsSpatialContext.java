@@ -21,10 +21,12 @@ import com.spatial4j.core.context.SpatialContext;
 import com.spatial4j.core.exception.InvalidShapeException;
 import com.spatial4j.core.shape.Circle;
 import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.PreparedQuery;
 import com.spatial4j.core.shape.Rectangle;
 import com.spatial4j.core.shape.Shape;
 import com.spatial4j.core.shape.jts.JtsGeometry;
 import com.spatial4j.core.shape.jts.JtsPoint;
+import com.spatial4j.core.shape.jts.JtsPreparedQuery;
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.util.GeometricShapeFactory;
 
@@ -53,6 +55,8 @@ public class JtsSpatialContext extends SpatialContext {
   protected final boolean useJtsPoint;
   protected final boolean useJtsLineString;
   protected final DatelineRule datelineRule;
+  protected final int autoIndexRelateCount;
+  protected final int autoIndexPointCount;
 
   /**
    * Called by {@link com.spatial4j.core.context.jts.JtsSpatialContextFactory#newSpatialContext()}.
@@ -65,6 +69,8 @@ public class JtsSpatialContext extends SpatialContext {
     this.useJtsPoint = factory.useJtsPoint;
     this.useJtsLineString = factory.useJtsLineString;
     this.datelineRule = factory.datelineRule;
+    this.autoIndexRelateCount = factory.autoIndexRelateCount;
+    this.autoIndexPointCount = factory.autoIndexPointCount;
   }
 
   /**
@@ -85,6 +91,26 @@ public class JtsSpatialContext extends SpatialContext {
     return datelineRule;
   }
 
+  /**
+   * A {@link JtsGeometry} automatically indexes itself (see {@link JtsGeometry#index()}) once
+   * this many relate() calls have needed JTS to compute the answer (i.e. weren't resolved by the
+   * bounding box). Thus shapes that are used a lot get indexed while one-off shapes don't pay for
+   * it. 0 (the default) disables this.
+   */
+  public int getAutoIndexRelateCount() {
+    return autoIndexRelateCount;
+  }
+
+  /**
+   * A {@link JtsGeometry} with at least this many points automatically indexes itself (see
+   * {@link JtsGeometry#index()}) on the first relate() call that needs JTS to compute the answer,
+   * since relating a big geometry without an index is slow. 0 (the default) disables this.
+   * @see #getAutoIndexRelateCount()
+   */
+  public int getAutoIndexPointCount() {
+    return autoIndexPointCount;
+  }
+
   @Override
   public double normX(double x) {
     x = super.normX(x);
@@ -221,6 +247,14 @@ public class JtsSpatialContext extends SpatialContext {
     return makeShape(geom, datelineRule != DatelineRule.none, allowMultiOverlap);
   }
 
+  /** A {@link JtsGeometry} query is prepared with a {@link JtsPreparedQuery}. */
+  @Override
+  public PreparedQuery prepareQuery(Shape query) {
+    if (query instanceof JtsGeometry)
+      return new JtsPreparedQuery((JtsGeometry) query);
+    return super.prepareQuery(query);
+  }
+
   public GeometryFactory getGeometryFactory() {
     return geometryFactory;
   }
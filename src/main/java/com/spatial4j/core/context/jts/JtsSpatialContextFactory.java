@@ -46,6 +46,10 @@ import com.vividsolutions.jts.geom.impl.CoordinateArraySequenceFactory;
  *  -- see {@link com.spatial4j.core.io.jts.JtsWKTReader.ValidationRule}</DD>
  * <DT>autoIndex</DT>
  * <DD>true|false(default) -- see {@link JtsWKTReader#isAutoIndex()}</DD>
+ * <DT>autoIndexRelateCount</DT>
+ * <DD>0(default, disabled)|N -- see {@link JtsSpatialContext#getAutoIndexRelateCount()}</DD>
+ * <DT>autoIndexPointCount</DT>
+ * <DD>0(default, disabled)|N -- see {@link JtsSpatialContext#getAutoIndexPointCount()}</DD>
  * <DT>allowMultiOverlap</DT>
  * <DD>true|false(default) -- see {@link JtsSpatialContext#isAllowMultiOverlap()}</DD>
  * <DT>precisionModel</DT>
@@ -69,6 +73,8 @@ public class JtsSpatialContextFactory extends SpatialContextFactory {
 
   public JtsWKTReader.ValidationRule validationRule = JtsWKTReader.ValidationRule.error;
   public boolean autoIndex = false;
+  public int autoIndexRelateCount = 0;//disabled
+  public int autoIndexPointCount = 0;//disabled
   public boolean allowMultiOverlap = false;//ignored if geo=false
 
   //kinda advanced options:
@@ -100,6 +106,8 @@ public class JtsSpatialContextFactory extends SpatialContextFactory {
     initField("datelineRule");
     initField("validationRule");
     initField("autoIndex");
+    initField("autoIndexRelateCount");
+    initField("autoIndexPointCount");
     initField("allowMultiOverlap");
     initField("useJtsPoint");
     initField("useJtsLineString");
@@ -21,7 +21,7 @@ import com.spatial4j.core.shape.Point;
 
 /**
  */
-public abstract class AbstractDistanceCalculator implements DistanceCalculator {
+public abstract class AbstractDistanceCalculator implements BatchDistanceCalculator {
 
   @Override
   public double distance(Point from, Point to) {
@@ -33,6 +33,47 @@ public abstract class AbstractDistanceCalculator implements DistanceCalculator {
     return distance(from, toX, toY) <= distance;
   }
 
+  /** Returns an anchor that calls this calculator's distance() and within(). */
+  @Override
+  public DistanceAnchor anchor(Point origin) {
+    return new DistanceAnchor(origin) {
+      @Override
+      public double distanceTo(double x, double y) {
+        return distance(this.origin, x, y);
+      }
+
+      @Override
+      public boolean within(double x, double y, double distance) {
+        return AbstractDistanceCalculator.this.within(this.origin, x, y, distance);
+      }
+    };
+  }
+
+  @Override
+  public void distances(Point from, double[] xs, double[] ys, int off, int len, double[] out) {
+    for (int i = off; i < off + len; i++) {
+      out[i] = distance(from, xs[i], ys[i]);
+    }
+  }
+
+  @Override
+  public void withinMask(Point from, double[] xs, double[] ys, double distance, long[] bitsOut) {
+    checkSameLength(xs, ys);
+    for (int w = 0; w << 6 < xs.length; w++) {
+      long word = 0;
+      for (int i = w << 6, end = Math.min(xs.length, i + 64); i < end; i++) {
+        if (within(from, xs[i], ys[i], distance))
+          word |= 1L << i;
+      }
+      bitsOut[w] = word;
+    }
+  }
+
+  static void checkSameLength(double[] xs, double[] ys) {
+    if (xs.length != ys.length)
+      throw new IllegalArgumentException("xs and ys lengths differ: " + xs.length + " " + ys.length);
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName();
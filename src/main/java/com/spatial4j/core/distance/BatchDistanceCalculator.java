@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.distance;
+
+import com.spatial4j.core.shape.Point;
+
+/**
+ * A {@link DistanceCalculator} that can also compare one point to many, doing the work that
+ * depends only on that point once: through a {@link DistanceAnchor}, or over points held in
+ * parallel arrays of coordinates. {@link
+ * AbstractDistanceCalculator} implements it; a calculator that implements DistanceCalculator
+ * directly needn't.
+ */
+public interface BatchDistanceCalculator extends DistanceCalculator {
+
+  /**
+   * Returns a reusable calculator of the distance from <code>origin</code>, for when many points
+   * are compared to the same one.
+   */
+  public DistanceAnchor anchor(Point origin);
+
+  /**
+   * The distances between <code>from</code> and the points in the parallel arrays <code>xs</code>
+   * and <code>ys</code> from <code>off</code> to <code>off + len</code> (exclusive), each written
+   * to <code>out</code> at the same index. The results are the same as from {@link
+   * #distance(com.spatial4j.core.shape.Point, double, double)}, computed in a loop that does the
+   * work that depends only on <code>from</code> once.
+   */
+  public void distances(Point from, double[] xs, double[] ys, int off, int len, double[] out);
+
+  /**
+   * For each point in the parallel arrays <code>xs</code> and <code>ys</code>, sets bit
+   * <code>i</code> of <code>bitsOut</code> (<code>bitsOut[i >> 6] & (1L << i)</code>) if point
+   * <code>i</code> is within <code>distance</code> of <code>from</code>, else clears it; like
+   * {@link #within(com.spatial4j.core.shape.Point, double, double, double)}. The bits past the
+   * last point in the last word are cleared.
+   */
+  public void withinMask(Point from, double[] xs, double[] ys, double distance, long[] bitsOut);
+
+}
@@ -63,6 +63,68 @@ public class CartesianDistCalc extends AbstractDistanceCalculator {
     return deltaX*deltaX + deltaY*deltaY <= distance*distance;
   }
 
+  @Override
+  public DistanceAnchor anchor(Point origin) {
+    return new DistanceAnchor(origin) {
+      final double x = this.origin.getX();
+      final double y = this.origin.getY();
+
+      @Override
+      public double distanceTo(double toX, double toY) {
+        double deltaX = x - toX;
+        double deltaY = y - toY;
+        double xSquaredPlusYSquared = deltaX*deltaX + deltaY*deltaY;
+        return squared ? xSquaredPlusYSquared : Math.sqrt(xSquaredPlusYSquared);
+      }
+
+      @Override
+      protected double comparable(double toX, double toY) {
+        double deltaX = x - toX;
+        double deltaY = y - toY;
+        return deltaX*deltaX + deltaY*deltaY;
+      }
+
+      @Override
+      protected double toComparable(double distance) {
+        return distance*distance;
+      }
+    };
+  }
+
+  @Override
+  public void distances(Point from, double[] xs, double[] ys, int off, int len, double[] out) {
+    final double x = from.getX();
+    final double y = from.getY();
+    for (int i = off; i < off + len; i++) {
+      double deltaX = x - xs[i];
+      double deltaY = y - ys[i];
+      out[i] = deltaX*deltaX + deltaY*deltaY;
+    }
+    if (!squared) {
+      for (int i = off; i < off + len; i++) {
+        out[i] = Math.sqrt(out[i]);
+      }
+    }
+  }
+
+  @Override
+  public void withinMask(Point from, double[] xs, double[] ys, double distance, long[] bitsOut) {
+    checkSameLength(xs, ys);
+    final double x = from.getX();
+    final double y = from.getY();
+    final double distSq = distance*distance;
+    for (int w = 0; w << 6 < xs.length; w++) {
+      long word = 0;
+      for (int i = w << 6, end = Math.min(xs.length, i + 64); i < end; i++) {
+        double deltaX = x - xs[i];
+        double deltaY = y - ys[i];
+        if (deltaX*deltaX + deltaY*deltaY <= distSq)
+          word |= 1L << i;
+      }
+      bitsOut[w] = word;
+    }
+  }
+
   @Override
   public Point pointOnBearing(Point from, double distDEG, double bearingDEG, SpatialContext ctx, Point reuse) {
     if (distDEG == 0) {
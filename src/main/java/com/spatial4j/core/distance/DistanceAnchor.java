@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.distance;
+
+import com.spatial4j.core.shape.Point;
+
+/**
+ * Calculates distances from a fixed origin, as returned by {@link
+ * BatchDistanceCalculator#anchor(com.spatial4j.core.shape.Point)}. The work that depends only on the
+ * origin, such as converting it to radians and its trigonometry, is done once when it's created.
+ * The distance given to {@link #within(double, double, double)} is converted to whatever is
+ * cheapest to compare against, and that's cached until a different distance is given. It's
+ * intended to be reused for many points, such as when sorting by distance; it isn't thread-safe.
+ */
+public abstract class DistanceAnchor {
+
+  protected final Point origin;
+
+  private double lastDistance = Double.NaN;
+  private double lastThreshold;
+
+  protected DistanceAnchor(Point origin) {
+    this.origin = origin;
+  }
+
+  public Point getOrigin() {
+    return origin;
+  }
+
+  /** The distance to <code>Point(x,y)</code>, the same as the calculator's. */
+  public abstract double distanceTo(double x, double y);
+
+  /** Returns true if the distance to <code>Point(x,y)</code> is <= distance. */
+  public boolean within(double x, double y, double distance) {
+    if (distance != lastDistance) {
+      lastThreshold = toComparable(distance);
+      lastDistance = distance;
+    }
+    return comparable(x, y) <= lastThreshold;
+  }
+
+  /**
+   * A value that orders points the same as their distance, which within() compares to {@link
+   * #toComparable(double)}. Defaults to the distance.
+   */
+  protected double comparable(double x, double y) {
+    return distanceTo(x, y);
+  }
+
+  /** Converts a distance to the space of {@link #comparable(double, double)}. */
+  protected double toComparable(double distance) {
+    return distance;
+  }
+}
@@ -94,6 +94,45 @@ public abstract class GeodesicSphereDistCalc extends AbstractDistanceCalculator
 
   protected abstract double distanceLatLonRAD(double lat1, double lon1, double lat2, double lon2);
 
+  /** Converts the origin to radians once. */
+  @Override
+  public DistanceAnchor anchor(Point origin) {
+    return new RadiansAnchor(origin) {
+      @Override
+      protected double distanceRAD(double lat2, double lon2) {
+        return distanceLatLonRAD(lat1, lon1, lat2, lon2);
+      }
+    };
+  }
+
+  @Override
+  public void distances(Point from, double[] xs, double[] ys, int off, int len, double[] out) {
+    final double lat1 = toRadians(from.getY());
+    final double lon1 = toRadians(from.getX());
+    for (int i = off; i < off + len; i++) {
+      out[i] = toDegrees(distanceLatLonRAD(lat1, lon1, toRadians(ys[i]), toRadians(xs[i])));
+    }
+  }
+
+  /** An anchor with the origin in radians. */
+  private abstract static class RadiansAnchor extends DistanceAnchor {
+    final double lat1;
+    final double lon1;
+
+    RadiansAnchor(Point origin) {
+      super(origin);
+      this.lat1 = toRadians(origin.getY());
+      this.lon1 = toRadians(origin.getX());
+    }
+
+    @Override
+    public final double distanceTo(double x, double y) {
+      return toDegrees(distanceRAD(toRadians(y), toRadians(x)));
+    }
+
+    protected abstract double distanceRAD(double lat2, double lon2);
+  }
+
   public static class Haversine extends GeodesicSphereDistCalc {
 
     @Override
@@ -101,6 +140,71 @@ public abstract class GeodesicSphereDistCalc extends AbstractDistanceCalculator
       return DistanceUtils.distHaversineRAD(lat1,lon1,lat2,lon2);
     }
 
+    @Override
+    public DistanceAnchor anchor(Point origin) {
+      return new HaversineAnchor(origin);
+    }
+
+    @Override
+    public void distances(Point from, double[] xs, double[] ys, int off, int len, double[] out) {
+      final HaversineAnchor anchor = new HaversineAnchor(from);
+      for (int i = off; i < off + len; i++) {
+        out[i] = toDegrees(anchor.distanceRAD(toRadians(ys[i]), toRadians(xs[i])));
+      }
+    }
+
+    /** Compares the "h" of the haversine formula, avoiding the atan2. */
+    @Override
+    public void withinMask(Point from, double[] xs, double[] ys, double distance, long[] bitsOut) {
+      checkSameLength(xs, ys);
+      final HaversineAnchor anchor = new HaversineAnchor(from);
+      final double maxH = anchor.toComparable(distance);
+      for (int w = 0; w << 6 < xs.length; w++) {
+        long word = 0;
+        for (int i = w << 6, end = Math.min(xs.length, i + 64); i < end; i++) {
+          if (anchor.comparable(xs[i], ys[i]) <= maxH)
+            word |= 1L << i;
+        }
+        bitsOut[w] = word;
+      }
+    }
+
+    /** Caches cos(lat1); within() compares the "h" of the haversine formula, avoiding the atan2. */
+    private static final class HaversineAnchor extends RadiansAnchor {
+      final double cosLat1 = Math.cos(lat1);
+
+      HaversineAnchor(Point origin) {
+        super(origin);
+      }
+
+      @Override
+      protected double distanceRAD(double lat2, double lon2) {
+        double h = h(lat2, lon2);
+        return 2 * Math.atan2(Math.sqrt(h), Math.sqrt(1 - h));
+      }
+
+      @Override
+      protected double comparable(double x, double y) {
+        return h(toRadians(y), toRadians(x));
+      }
+
+      @Override
+      protected double toComparable(double distance) {
+        if (distance < 0)
+          return -1;
+        double hsinDist = Math.sin(Math.min(toRadians(distance), Math.PI) * 0.5);
+        return hsinDist * hsinDist;
+      }
+
+      /** Like {@link DistanceUtils#distHaversineRAD(double, double, double, double)} up to the atan2. */
+      private double h(double lat2, double lon2) {
+        double hsinX = Math.sin((lon1 - lon2) * 0.5);
+        double hsinY = Math.sin((lat1 - lat2) * 0.5);
+        double h = hsinY * hsinY +
+                (cosLat1 * Math.cos(lat2) * hsinX * hsinX);
+        return h > 1 ? 1 : h;
+      }
+    }
   }
 
   public static class LawOfCosines extends GeodesicSphereDistCalc {
@@ -110,6 +214,79 @@ public abstract class GeodesicSphereDistCalc extends AbstractDistanceCalculator
       return DistanceUtils.distLawOfCosinesRAD(lat1, lon1, lat2, lon2);
     }
 
+    @Override
+    public DistanceAnchor anchor(Point origin) {
+      return new LawOfCosinesAnchor(origin);
+    }
+
+    @Override
+    public void distances(Point from, double[] xs, double[] ys, int off, int len, double[] out) {
+      final LawOfCosinesAnchor anchor = new LawOfCosinesAnchor(from);
+      for (int i = off; i < off + len; i++) {
+        out[i] = toDegrees(anchor.distanceRAD(toRadians(ys[i]), toRadians(xs[i])));
+      }
+    }
+
+    /** Compares the cosine of the distance, avoiding the acos. */
+    @Override
+    public void withinMask(Point from, double[] xs, double[] ys, double distance, long[] bitsOut) {
+      checkSameLength(xs, ys);
+      final LawOfCosinesAnchor anchor = new LawOfCosinesAnchor(from);
+      final double maxNegCosB = anchor.toComparable(distance);
+      for (int w = 0; w << 6 < xs.length; w++) {
+        long word = 0;
+        for (int i = w << 6, end = Math.min(xs.length, i + 64); i < end; i++) {
+          if (anchor.comparable(xs[i], ys[i]) <= maxNegCosB)
+            word |= 1L << i;
+        }
+        bitsOut[w] = word;
+      }
+    }
+
+    /** Caches sin(lat1) and cos(lat1); within() compares the cosine of the distance, avoiding the acos. */
+    private static final class LawOfCosinesAnchor extends RadiansAnchor {
+      final double sinLat1 = Math.sin(lat1);
+      final double cosLat1 = Math.cos(lat1);
+
+      LawOfCosinesAnchor(Point origin) {
+        super(origin);
+      }
+
+      @Override
+      protected double distanceRAD(double lat2, double lon2) {
+        if (lat1 == lat2 && lon1 == lon2)
+          return 0.0;
+        double cosB = cosB(lat2, lon2);
+        if (cosB < -1.0)
+          return Math.PI;
+        else if (cosB >= 1.0)
+          return 0;
+        else
+          return Math.acos(cosB);
+      }
+
+      @Override
+      protected double comparable(double x, double y) {
+        double lat2 = toRadians(y);
+        double lon2 = toRadians(x);
+        if (lat1 == lat2 && lon1 == lon2)
+          return -1;
+        return -cosB(lat2, lon2);
+      }
+
+      @Override
+      protected double toComparable(double distance) {
+        if (distance < 0)
+          return Double.NEGATIVE_INFINITY;
+        if (distance >= 180)
+          return Double.POSITIVE_INFINITY;
+        return -Math.cos(toRadians(distance));
+      }
+
+      private double cosB(double lat2, double lon2) {
+        return (sinLat1 * Math.sin(lat2)) + (cosLat1 * Math.cos(lat2) * Math.cos(lon2 - lon1));
+      }
+    }
   }
 
   public static class Vincenty extends GeodesicSphereDistCalc {
@@ -118,5 +295,111 @@ public abstract class GeodesicSphereDistCalc extends AbstractDistanceCalculator
     protected double distanceLatLonRAD(double lat1, double lon1, double lat2, double lon2) {
       return DistanceUtils.distVincentyRAD(lat1, lon1, lat2, lon2);
     }
+
+    @Override
+    public DistanceAnchor anchor(Point origin) {
+      return new VincentyAnchor(origin);
+    }
+
+    @Override
+    public void distances(Point from, double[] xs, double[] ys, int off, int len, double[] out) {
+      final VincentyAnchor anchor = new VincentyAnchor(from);
+      for (int i = off; i < off + len; i++) {
+        out[i] = toDegrees(anchor.distanceRAD(toRadians(ys[i]), toRadians(xs[i])));
+      }
+    }
+
+    /** Caches sin(lat1) and cos(lat1). */
+    private static final class VincentyAnchor extends RadiansAnchor {
+      final double sinLat1 = Math.sin(lat1);
+      final double cosLat1 = Math.cos(lat1);
+
+      VincentyAnchor(Point origin) {
+        super(origin);
+      }
+
+      @Override
+      protected double distanceRAD(double lat2, double lon2) {
+        if (lat1 == lat2 && lon1 == lon2)
+          return 0.0;
+        double cosLat2 = Math.cos(lat2);
+        double sinLat2 = Math.sin(lat2);
+        double dLon = lon2 - lon1;
+        double cosDLon = Math.cos(dLon);
+        double sinDLon = Math.sin(dLon);
+
+        double a = cosLat2 * sinDLon;
+        double b = cosLat1*sinLat2 - sinLat1*cosLat2*cosDLon;
+        double c = sinLat1*sinLat2 + cosLat1*cosLat2*cosDLon;
+        return Math.atan2(Math.sqrt(a*a+b*b), c);
+      }
+    }
+  }
+
+  /**
+   * Approximates short distances by projecting the points onto a plane with the equirectangular
+   * projection centered at their mean latitude: a cosine and a square root, instead of haversine's
+   * several trig calls. Farther apart than {@code maxApproxDEG * cos(meanLat)} -- which is short
+   * near the poles, where the approximation degrades -- it uses {@link Haversine}'s formula.
+   * <p/>
+   * With {@code r} being maxApproxDEG in radians, the relative error of an approximated distance is
+   * less than {@code r^2 / 16}. For the default of 1 degree that's under 0.002%, or 2 meters at
+   * 111km.
+   */
+  public static class Equirectangular extends GeodesicSphereDistCalc {
+
+    public static final double DEFAULT_MAX_APPROX_DEG = 1;
+
+    private final double maxApproxDEG;
+    private final double maxApproxRAD;
+
+    public Equirectangular() {
+      this(DEFAULT_MAX_APPROX_DEG);
+    }
+
+    /** @param maxApproxDEG The distance in degrees up to which the approximation is used. */
+    public Equirectangular(double maxApproxDEG) {
+      if (!(maxApproxDEG >= 0 && maxApproxDEG <= 180))
+        throw new IllegalArgumentException("maxApproxDEG must be in [0, 180]: " + maxApproxDEG);
+      this.maxApproxDEG = maxApproxDEG;
+      this.maxApproxRAD = toRadians(maxApproxDEG);
+    }
+
+    public double getMaxApproxDEG() {
+      return maxApproxDEG;
+    }
+
+    @Override
+    protected double distanceLatLonRAD(double lat1, double lon1, double lat2, double lon2) {
+      double dLon = lon2 - lon1;
+      if (dLon > Math.PI)
+        dLon -= 2 * Math.PI;
+      else if (dLon < -Math.PI)
+        dLon += 2 * Math.PI;
+      double cosLat = Math.cos((lat1 + lat2) * 0.5);
+      double x = dLon * cosLat;
+      double y = lat2 - lat1;
+      double distSq = x * x + y * y;
+      double limit = maxApproxRAD * cosLat;
+      if (distSq <= limit * limit)
+        return Math.sqrt(distSq);
+      return DistanceUtils.distHaversineRAD(lat1, lon1, lat2, lon2);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return super.equals(obj) && ((Equirectangular) obj).maxApproxDEG == maxApproxDEG;
+    }
+
+    @Override
+    public int hashCode() {
+      long bits = Double.doubleToLongBits(maxApproxDEG);
+      return 31 * super.hashCode() + (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName() + "(maxApproxDEG=" + maxApproxDEG + ")";
+    }
   }
 }
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.distance;
+
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.impl.NVectorPoint;
+
+import static com.spatial4j.core.distance.DistanceUtils.toDegrees;
+import static com.spatial4j.core.distance.DistanceUtils.toRadians;
+
+/**
+ * A spherical calculator that works with points as 3D unit vectors ("n-vectors"), which {@link
+ * NVectorPoint} caches. The distance is the angle between the vectors, {@code atan2(|a x b|, a . b)},
+ * which like {@link GeodesicSphereDistCalc.Vincenty} is accurate at any distance. within() compares
+ * the squared length of the chord between the vectors, {@code |a - b|^2}, to {@code
+ * 4 sin^2(distance / 2)}. That's as cheap as comparing the dot product to {@code cos(distance)} but
+ * doesn't lose precision at short distances. Given two NVectorPoints, neither needs trigonometry;
+ * the vector of a point given as x and y is computed.
+ * <p/>
+ * {@link com.spatial4j.core.shape.impl.GeoCircle} uses the cached vectors to relate to a point
+ * when its center is an NVectorPoint, with the chord threshold of its radius computed once.
+ */
+public class NVectorDistCalc extends GeodesicSphereDistCalc {
+
+  @Override
+  protected double distanceLatLonRAD(double lat1, double lon1, double lat2, double lon2) {
+    double cosLat1 = Math.cos(lat1);
+    double cosLat2 = Math.cos(lat2);
+    return angle(cosLat1 * Math.cos(lon1), cosLat1 * Math.sin(lon1), Math.sin(lat1),
+        cosLat2 * Math.cos(lon2), cosLat2 * Math.sin(lon2), Math.sin(lat2));
+  }
+
+  @Override
+  public double distance(Point from, Point to) {
+    if (from instanceof NVectorPoint && to instanceof NVectorPoint) {
+      NVectorPoint a = (NVectorPoint) from;
+      NVectorPoint b = (NVectorPoint) to;
+      return toDegrees(angle(a.getVectorX(), a.getVectorY(), a.getVectorZ(),
+          b.getVectorX(), b.getVectorY(), b.getVectorZ()));
+    }
+    return super.distance(from, to);
+  }
+
+  @Override
+  public boolean within(Point from, double toX, double toY, double distance) {
+    if (from instanceof NVectorPoint) {
+      NVectorPoint p = (NVectorPoint) from;
+      return chordSquared(p.getVectorX(), p.getVectorY(), p.getVectorZ(), toX, toY) <= chordSquared(distance);
+    }
+    double lat = toRadians(from.getY());
+    double lon = toRadians(from.getX());
+    double cosLat = Math.cos(lat);
+    return chordSquared(cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat), toX, toY)
+        <= chordSquared(distance);
+  }
+
+  /** Like {@link #within(com.spatial4j.core.shape.Point, double, double, double)}. */
+  public boolean within(Point from, Point to, double distance) {
+    if (from instanceof NVectorPoint && to instanceof NVectorPoint)
+      return chordSquared((NVectorPoint) from, (NVectorPoint) to) <= chordSquared(distance);
+    return within(from, to.getX(), to.getY(), distance);
+  }
+
+  @Override
+  public DistanceAnchor anchor(Point origin) {
+    return new NVectorAnchor(origin);
+  }
+
+  @Override
+  public void distances(Point from, double[] xs, double[] ys, int off, int len, double[] out) {
+    final NVectorAnchor anchor = new NVectorAnchor(from);
+    for (int i = off; i < off + len; i++) {
+      out[i] = anchor.distanceTo(xs[i], ys[i]);
+    }
+  }
+
+  @Override
+  public void withinMask(Point from, double[] xs, double[] ys, double distance, long[] bitsOut) {
+    checkSameLength(xs, ys);
+    final NVectorAnchor anchor = new NVectorAnchor(from);
+    final double maxChordSq = chordSquared(distance);
+    for (int w = 0; w << 6 < xs.length; w++) {
+      long word = 0;
+      for (int i = w << 6, end = Math.min(xs.length, i + 64); i < end; i++) {
+        if (anchor.comparable(xs[i], ys[i]) <= maxChordSq)
+          word |= 1L << i;
+      }
+      bitsOut[w] = word;
+    }
+  }
+
+  /** Caches the origin's vector; within() compares the squared chord. */
+  private static final class NVectorAnchor extends DistanceAnchor {
+    final double x1, y1, z1;
+
+    NVectorAnchor(Point origin) {
+      super(origin);
+      if (origin instanceof NVectorPoint) {
+        NVectorPoint p = (NVectorPoint) origin;
+        x1 = p.getVectorX();
+        y1 = p.getVectorY();
+        z1 = p.getVectorZ();
+      } else {
+        double lat = toRadians(origin.getY());
+        double lon = toRadians(origin.getX());
+        x1 = Math.cos(lat) * Math.cos(lon);
+        y1 = Math.cos(lat) * Math.sin(lon);
+        z1 = Math.sin(lat);
+      }
+    }
+
+    @Override
+    public double distanceTo(double x, double y) {
+      double lat = toRadians(y);
+      double lon = toRadians(x);
+      double cosLat = Math.cos(lat);
+      return toDegrees(angle(x1, y1, z1, cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat)));
+    }
+
+    @Override
+    protected double comparable(double x, double y) {
+      return chordSquared(x1, y1, z1, x, y);
+    }
+
+    @Override
+    protected double toComparable(double distance) {
+      return chordSquared(distance);
+    }
+  }
+
+  /** The squared length of the chord between the vector (x1, y1, z1) and that of Point(x, y). */
+  private static double chordSquared(double x1, double y1, double z1, double x, double y) {
+    double lat = toRadians(y);
+    double lon = toRadians(x);
+    double cosLat = Math.cos(lat);
+    double dx = x1 - cosLat * Math.cos(lon);
+    double dy = y1 - cosLat * Math.sin(lon);
+    double dz = z1 - Math.sin(lat);
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /** The squared length of the chord between the points' vectors. */
+  public static double chordSquared(NVectorPoint a, NVectorPoint b) {
+    double dx = a.getVectorX() - b.getVectorX();
+    double dy = a.getVectorY() - b.getVectorY();
+    double dz = a.getVectorZ() - b.getVectorZ();
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /**
+   * The squared chord length of a distance in degrees, to compare with {@link
+   * #chordSquared(com.spatial4j.core.shape.impl.NVectorPoint, com.spatial4j.core.shape.impl.NVectorPoint)}.
+   * Negative for a negative distance, so that nothing is within it, and infinite from 180 degrees on
+   * since the vectors of antipodal points may be a hair further apart than 2.
+   */
+  public static double chordSquared(double distDEG) {
+    if (distDEG < 0)
+      return -1;
+    if (distDEG >= 180)
+      return Double.POSITIVE_INFINITY;
+    double halfChord = Math.sin(toRadians(distDEG) / 2);
+    return 4 * halfChord * halfChord;
+  }
+
+  /** The angle in radians between two unit vectors. */
+  private static double angle(double x1, double y1, double z1, double x2, double y2, double z2) {
+    double crossX = y1 * z2 - z1 * y2;
+    double crossY = z1 * x2 - x1 * z2;
+    double crossZ = x1 * y2 - y1 * x2;
+    double cross = Math.sqrt(crossX * crossX + crossY * crossY + crossZ * crossZ);
+    return Math.atan2(cross, x1 * x2 + y1 * y2 + z1 * z2);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.index;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+
+import java.util.Arrays;
+
+/**
+ * INTERNAL: A growable list of axis-aligned boxes held in parallel primitive arrays. Each box is
+ * tagged with the id (usually a list index) of the shape it was computed from. A geodetic
+ * rectangle that crosses the dateline is added as two pieces sharing the same id, so every box
+ * here has minX &lt;= maxX. Empty shapes are skipped.
+ */
+class BoxList {
+
+  double[] minX, maxX, minY, maxY;
+  int[] ids;
+  int size;
+  /** True if some id was added as more than one piece. */
+  boolean hasSplits;
+
+  BoxList(int initialCapacity) {
+    initialCapacity = Math.max(initialCapacity, 1);
+    minX = new double[initialCapacity];
+    maxX = new double[initialCapacity];
+    minY = new double[initialCapacity];
+    maxY = new double[initialCapacity];
+    ids = new int[initialCapacity];
+  }
+
+  /**
+   * Adds the bounding box of {@code shape}.
+   * @return the number of pieces added: 0 if the shape is empty, 2 if split at the dateline, else 1.
+   */
+  int add(Shape shape, int id, SpatialContext ctx) {
+    if (shape.isEmpty())
+      return 0;
+    if (shape instanceof Point) {//avoids allocating a Rectangle
+      Point p = (Point) shape;
+      add(p.getX(), p.getX(), p.getY(), p.getY(), id);
+      return 1;
+    }
+    return add(shape.getBoundingBox(), id, ctx);
+  }
+
+  /** See {@link #add(com.spatial4j.core.shape.Shape, int, com.spatial4j.core.context.SpatialContext)}. */
+  int add(Rectangle r, int id, SpatialContext ctx) {
+    if (r.isEmpty())
+      return 0;
+    if (r.getCrossesDateLine()) {
+      Rectangle worldBounds = ctx.getWorldBounds();
+      add(r.getMinX(), worldBounds.getMaxX(), r.getMinY(), r.getMaxY(), id);
+      add(worldBounds.getMinX(), r.getMaxX(), r.getMinY(), r.getMaxY(), id);
+      hasSplits = true;
+      return 2;
+    }
+    add(r.getMinX(), r.getMaxX(), r.getMinY(), r.getMaxY(), id);
+    return 1;
+  }
+
+  void add(double minX, double maxX, double minY, double maxY, int id) {
+    if (size == ids.length)
+      grow();
+    this.minX[size] = minX;
+    this.maxX[size] = maxX;
+    this.minY[size] = minY;
+    this.maxY[size] = maxY;
+    this.ids[size] = id;
+    size++;
+  }
+
+  private void grow() {
+    int newLen = ids.length + (ids.length >> 1) + 1;
+    minX = Arrays.copyOf(minX, newLen);
+    maxX = Arrays.copyOf(maxX, newLen);
+    minY = Arrays.copyOf(minY, newLen);
+    maxY = Arrays.copyOf(maxY, newLen);
+    ids = Arrays.copyOf(ids, newLen);
+  }
+
+  /** The x center of each box, in list order. */
+  double[] centersX() {
+    double[] c = new double[size];
+    for (int i = 0; i < size; i++)
+      c[i] = (minX[i] + maxX[i]) * 0.5;
+    return c;
+  }
+
+  /** The y center of each box, in list order. */
+  double[] centersY() {
+    double[] c = new double[size];
+    for (int i = 0; i < size; i++)
+      c[i] = (minY[i] + maxY[i]) * 0.5;
+    return c;
+  }
+
+  /** An identity permutation of this list: {0, 1, ... size-1}. */
+  int[] identityOrder() {
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++)
+      order[i] = i;
+    return order;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.index;
+
+/**
+ * INTERNAL: Sorts a permutation of ints by the double keys they refer to, without boxing. This
+ * is a quicksort (median of three) that falls back to insertion sort for small ranges. It isn't
+ * stable.
+ */
+class IndexSorter {
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private IndexSorter() {
+  }
+
+  /** Sorts {@code perm[from, to)} ascending by {@code keys[perm[i]]}. */
+  static void sort(int[] perm, int from, int to, double[] keys) {
+    while (to - from > INSERTION_SORT_THRESHOLD) {
+      int mid = (from + to) >>> 1;
+      //median of three moved to 'mid'
+      if (keys[perm[mid]] < keys[perm[from]])
+        swap(perm, mid, from);
+      if (keys[perm[to - 1]] < keys[perm[from]])
+        swap(perm, to - 1, from);
+      if (keys[perm[to - 1]] < keys[perm[mid]])
+        swap(perm, to - 1, mid);
+      final double pivot = keys[perm[mid]];
+      int i = from, j = to - 1;
+      while (i <= j) {
+        while (keys[perm[i]] < pivot)
+          i++;
+        while (keys[perm[j]] > pivot)
+          j--;
+        if (i <= j) {
+          swap(perm, i, j);
+          i++;
+          j--;
+        }
+      }
+      //recurse into the smaller side, loop on the larger to bound the stack depth
+      if (j + 1 - from < to - i) {
+        sort(perm, from, j + 1, keys);
+        from = i;
+      } else {
+        sort(perm, i, to, keys);
+        to = j + 1;
+      }
+    }
+    for (int i = from + 1; i < to; i++) {
+      int v = perm[i];
+      double k = keys[v];
+      int j = i - 1;
+      while (j >= from && keys[perm[j]] > k) {
+        perm[j + 1] = perm[j];
+        j--;
+      }
+      perm[j + 1] = v;
+    }
+  }
+
+  /** Reverses {@code perm[from, to)}. */
+  static void reverse(int[] perm, int from, int to) {
+    for (int i = from, j = to - 1; i < j; i++, j--)
+      swap(perm, i, j);
+  }
+
+  private static void swap(int[] perm, int i, int j) {
+    int t = perm[i];
+    perm[i] = perm[j];
+    perm[j] = t;
+  }
+}
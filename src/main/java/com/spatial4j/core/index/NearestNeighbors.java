@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.index;
+
+/**
+ * The result of a k-nearest-neighbor search, such as {@link StrTree#knn(com.spatial4j.core.shape.Point, int, double)}:
+ * up to k ids (indexes of the shapes) and their distances, held in primitive arrays.  While
+ * searching, it's a bounded max-heap on distance; when the search completes, it's sorted by
+ * ascending distance.  It may be reused for another search.
+ */
+public final class NearestNeighbors {
+
+  private int k;
+  private int[] ids;
+  private double[] distances;
+  private int size;
+
+  public NearestNeighbors(int k) {
+    reset(k);
+  }
+
+  /** Clears the results, to hold up to {@code k} for the next search. */
+  public void reset(int k) {
+    if (k < 1)
+      throw new IllegalArgumentException("k must be >= 1: " + k);
+    this.k = k;
+    if (ids == null || ids.length < k) {
+      ids = new int[k];
+      distances = new double[k];
+    }
+    size = 0;
+  }
+
+  public int getK() {
+    return k;
+  }
+
+  /** The number of neighbors found; up to {@link #getK()}. */
+  public int size() {
+    return size;
+  }
+
+  /** The id of the i'th nearest neighbor. */
+  public int getId(int i) {
+    checkIndex(i);
+    return ids[i];
+  }
+
+  /** The distance of the i'th nearest neighbor. */
+  public double getDistance(int i) {
+    checkIndex(i);
+    return distances[i];
+  }
+
+  private void checkIndex(int i) {
+    if (i < 0 || i >= size)
+      throw new IndexOutOfBoundsException("index " + i + " not in [0," + size + ")");
+  }
+
+  /** Whether there are k neighbors and the farthest is closer than {@code distance}. */
+  boolean isFullAndCloser(double distance) {
+    return size == k && distances[0] <= distance;
+  }
+
+  /** Adds the neighbor, replacing the farthest if full and it's closer. */
+  void offer(int id, double distance) {
+    if (size < k) {
+      int i = size++;
+      //sift up
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (distances[parent] >= distance)
+          break;
+        ids[i] = ids[parent];
+        distances[i] = distances[parent];
+        i = parent;
+      }
+      ids[i] = id;
+      distances[i] = distance;
+    } else if (distance < distances[0]) {
+      siftDown(0, size, id, distance);
+    }
+  }
+
+  /** Places id & distance at index i of the heap of size n, moving it down to its place. */
+  private void siftDown(int i, int n, int id, double distance) {
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= n)
+        break;
+      if (child + 1 < n && distances[child + 1] > distances[child])
+        child++;
+      if (distances[child] <= distance)
+        break;
+      ids[i] = ids[child];
+      distances[i] = distances[child];
+      i = child;
+    }
+    ids[i] = id;
+    distances[i] = distance;
+  }
+
+  /** Sorts by ascending distance (a heap sort); it's no longer a heap. */
+  void sort() {
+    for (int n = size - 1; n > 0; n--) {
+      int id = ids[n];
+      double distance = distances[n];
+      ids[n] = ids[0];//the farthest goes last
+      distances[n] = distances[0];
+      siftDown(0, n, id, distance);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder("NearestNeighbors{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0)
+        buf.append(", ");
+      buf.append(ids[i]).append('=').append(distances[i]);
+    }
+    return buf.append('}').toString();
+  }
+}
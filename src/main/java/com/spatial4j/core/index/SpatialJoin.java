@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.index;
+
+import com.spatial4j.core.SpatialPredicate;
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.distance.DistanceCalculator;
+import com.spatial4j.core.exception.UnsupportedSpatialPredicate;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Spatial joins: finding the pairs of shapes, one from each of two lists, that satisfy a condition,
+ * without comparing every pair.
+ * <p/>
+ * The bounding boxes of both sides are partitioned into vertical stripes across the world, with a
+ * box replicated into each stripe it overlaps. Each stripe is joined by a plane sweep over its
+ * boxes sorted by minX, and only the pairs with overlapping boxes are tested exactly. A pair found
+ * in more than one stripe is reported only by the stripe containing its reference point, the
+ * greater minX of the two boxes. With a {@link ForkJoinPool}, the stripes are joined in parallel.
+ * In a geospatial context, boxes crossing the dateline are split, and x = -180 and x = +180 are the
+ * same place.
+ */
+public class SpatialJoin {
+
+  /**
+   * Receives the pairs found by a join, by their indexes in the left & right lists.  When joining
+   * with a {@link ForkJoinPool}, it's called concurrently from its threads, so it must be
+   * thread-safe.
+   */
+  public interface PairConsumer {
+    void accept(int leftIndex, int rightIndex);
+  }
+
+  /** The exact test of a pair whose bounding boxes overlap. */
+  interface PairFilter {
+    boolean matches(int leftIndex, int rightIndex);
+  }
+
+  private static final int STRIPES_PER_THREAD = 4;
+  private static final int MIN_BOXES_PER_STRIPE = 256;
+
+  private SpatialJoin() {
+  }
+
+  /**
+   * Finds the pairs of shapes within {@code distDEG} of each other.  Between points, it's {@link
+   * DistanceCalculator#within(com.spatial4j.core.shape.Point, double, double, double)}. If one is a
+   * point then it's whether a circle of that distance around it intersects the other shape;
+   * otherwise it's whether the left shape, buffered by the distance, intersects the right one.
+   *
+   * @param pool if non-null then the work is split across it.
+   */
+  public static void withinDistance(final List<? extends Shape> left, final List<? extends Shape> right,
+                                    final double distDEG, final SpatialContext ctx, ForkJoinPool pool,
+                                    PairConsumer out) {
+    if (distDEG < 0)
+      throw new IllegalArgumentException("distDEG must be >= 0: " + distDEG);
+    final DistanceCalculator distCalc = ctx.getDistCalc();
+    //the left boxes are expanded by the distance
+    BoxList leftBoxes = new BoxList(left.size());
+    Rectangle box = null;
+    for (int i = 0; i < left.size(); i++) {
+      Shape shape = left.get(i);
+      if (shape.isEmpty())
+        continue;
+      if (!ctx.isGeo()) {//no need to create a Rectangle, which must be within the world bounds
+        Rectangle bbox = shape instanceof Point ? null : shape.getBoundingBox();
+        double minX = bbox == null ? ((Point) shape).getX() : bbox.getMinX();
+        double maxX = bbox == null ? ((Point) shape).getX() : bbox.getMaxX();
+        double minY = bbox == null ? ((Point) shape).getY() : bbox.getMinY();
+        double maxY = bbox == null ? ((Point) shape).getY() : bbox.getMaxY();
+        leftBoxes.add(minX - distDEG, maxX + distDEG, minY - distDEG, maxY + distDEG, i);
+        continue;
+      }
+      if (shape instanceof Point)
+        box = distCalc.calcBoxByDistFromPt((Point) shape, distDEG, ctx, box);
+      else
+        box = shape.getBoundingBox().getBuffered(distDEG, ctx).getBoundingBox();
+      addWrapped(leftBoxes, box, i, ctx);
+    }
+    BoxList rightBoxes = new BoxList(right.size());
+    for (int i = 0; i < right.size(); i++)
+      rightBoxes.add(right.get(i), i, ctx);
+
+    //each non-point left shape is buffered once, when first needed; racing threads store equal shapes
+    final Shape[] leftBuffered = new Shape[left.size()];
+    join(leftBoxes, rightBoxes, new PairFilter() {
+      @Override
+      public boolean matches(int leftIndex, int rightIndex) {
+        Shape l = left.get(leftIndex), r = right.get(rightIndex);
+        if (l instanceof Point) {
+          Point p = (Point) l;
+          if (r instanceof Point)
+            return distCalc.within(p, ((Point) r).getX(), ((Point) r).getY(), distDEG);
+          return ctx.makeCircle(p, distDEG).relate(r).intersects();
+        }
+        if (r instanceof Point)
+          return ctx.makeCircle((Point) r, distDEG).relate(l).intersects();
+        Shape buffered = leftBuffered[leftIndex];
+        if (buffered == null)
+          leftBuffered[leftIndex] = buffered = l.getBuffered(distDEG, ctx);
+        return buffered.relate(r).intersects();
+      }
+    }, out, ctx, pool);
+  }
+
+  /**
+   * Finds the pairs of shapes that satisfy {@code predicate.evaluate(left, right)}.  Only pairs with
+   * intersecting bounding boxes are evaluated, which is why {@link SpatialPredicate#IsDisjointTo}
+   * isn't supported.  Like {@link StrTree#search(com.spatial4j.core.shape.Shape, com.spatial4j.core.SpatialPredicate)},
+   * a custom predicate is assumed to never be satisfied by shapes with disjoint bounding boxes.
+   *
+   * @param pool if non-null then the work is split across it.
+   * @throws UnsupportedSpatialPredicate for {@link SpatialPredicate#IsDisjointTo}
+   */
+  public static void join(final List<? extends Shape> left, final List<? extends Shape> right,
+                          final SpatialPredicate predicate, SpatialContext ctx, ForkJoinPool pool,
+                          PairConsumer out) {
+    if (predicate == SpatialPredicate.IsDisjointTo)
+      throw new UnsupportedSpatialPredicate(predicate);
+    BoxList leftBoxes = new BoxList(left.size());
+    for (int i = 0; i < left.size(); i++)
+      addWrapped(leftBoxes, left.get(i), i, ctx);
+    BoxList rightBoxes = new BoxList(right.size());
+    for (int i = 0; i < right.size(); i++)
+      rightBoxes.add(right.get(i), i, ctx);
+
+    join(leftBoxes, rightBoxes, new PairFilter() {
+      @Override
+      public boolean matches(int leftIndex, int rightIndex) {
+        return predicate.evaluate(left.get(leftIndex), right.get(rightIndex));
+      }
+    }, out, ctx, pool);
+  }
+
+  /**
+   * Whether any two of the shapes intersect; the opposite of them being mutually disjoint.  It's a
+   * sweep of the shapes' boxes sorted by minX, like a join of the list with itself, that stops at
+   * the first pair of shapes that intersect.  Empty shapes intersect nothing.
+   *
+   * @param pool if non-null then the work is split across it.
+   */
+  public static boolean anyIntersect(List<? extends Shape> shapes, SpatialContext ctx, ForkJoinPool pool) {
+    BoxList boxes = new BoxList(shapes.size());
+    for (int i = 0; i < shapes.size(); i++)
+      addWrapped(boxes, shapes.get(i), i, ctx);
+    if (boxes.size < 2)
+      return false;
+    SelfSweep sweep = new SelfSweep(boxes, shapes);
+    if (pool == null)
+      return sweep.anyIntersects(0, boxes.size, null);
+    AtomicBoolean found = new AtomicBoolean();
+    int leafSize = Math.max(16, boxes.size / (pool.getParallelism() * 8));
+    pool.invoke(new SelfSweepTask(sweep, 0, boxes.size, leafSize, found));
+    return found.get();
+  }
+
+  /**
+   * Adds the shape's box to {@code boxes} like {@link #addWrapped(BoxList, Rectangle, int,
+   * SpatialContext)}; a point on the dateline is added at both sides.  Empty shapes are skipped.
+   */
+  static void addWrapped(BoxList boxes, Shape shape, int id, SpatialContext ctx) {
+    if (shape.isEmpty())
+      return;
+    if (shape instanceof Point) {
+      Point p = (Point) shape;
+      boxes.add(p.getX(), p.getX(), p.getY(), p.getY(), id);
+      //a point on the dateline meets boxes touching the other side
+      if (ctx.isGeo() && Math.abs(p.getX()) == 180) {
+        boxes.add(-p.getX(), -p.getX(), p.getY(), p.getY(), id);
+        boxes.hasSplits = true;
+      }
+    } else {
+      addWrapped(boxes, shape.getBoundingBox(), id, ctx);
+    }
+  }
+
+  /**
+   * Adds the box to {@code boxes}.  In a geospatial context, if it touches the dateline on one side
+   * only then it's added as crossing it by zero width, so that it meets boxes touching the other
+   * side.  Doing so for one side of a join suffices.
+   */
+  static void addWrapped(BoxList boxes, Rectangle r, int id, SpatialContext ctx) {
+    if (ctx.isGeo() && !r.isEmpty() && !r.getCrossesDateLine()) {
+      Rectangle world = ctx.getWorldBounds();
+      if (r.getMaxX() >= world.getMaxX() && r.getMinX() > world.getMinX()) {
+        boxes.add(r.getMinX(), world.getMaxX(), r.getMinY(), r.getMaxY(), id);
+        boxes.add(world.getMinX(), world.getMinX(), r.getMinY(), r.getMaxY(), id);
+        boxes.hasSplits = true;
+        return;
+      }
+      if (r.getMinX() <= world.getMinX() && r.getMaxX() < world.getMaxX()) {
+        boxes.add(world.getMaxX(), world.getMaxX(), r.getMinY(), r.getMaxY(), id);
+        boxes.add(world.getMinX(), r.getMaxX(), r.getMinY(), r.getMaxY(), id);
+        boxes.hasSplits = true;
+        return;
+      }
+    }
+    boxes.add(r, id, ctx);
+  }
+
+  /** Reports each pair of ids with overlapping boxes that {@code filter} matches, once. */
+  static void join(BoxList leftBoxes, BoxList rightBoxes, PairFilter filter, PairConsumer out,
+                   SpatialContext ctx, ForkJoinPool pool) {
+    if (leftBoxes.size == 0 || rightBoxes.size == 0)
+      return;
+    int numStripes = 1;
+    if (pool != null) {
+      numStripes = Math.min(pool.getParallelism() * STRIPES_PER_THREAD,
+          (leftBoxes.size + rightBoxes.size) / MIN_BOXES_PER_STRIPE);
+      numStripes = Math.max(1, numStripes);
+    }
+    Stripes stripes = new Stripes(leftBoxes, rightBoxes, filter, out, ctx.getWorldBounds(), numStripes);
+    StripeTask task = new StripeTask(stripes, 0, numStripes);
+    if (pool != null)
+      pool.invoke(task);
+    else
+      task.compute();
+  }
+
+  /** The boxes of both sides partitioned into vertical stripes, and the sweep of a stripe. */
+  private static final class Stripes {
+    final BoxList a, b;//left, right
+    final PairFilter filter;
+    final PairConsumer out;
+    final double minX, stripeWidth;
+    final int numStripes;
+    final int[] aOffsets, aMembers, bOffsets, bMembers;//CSR layout: a stripe's box indexes
+
+    Stripes(BoxList a, BoxList b, PairFilter filter, PairConsumer out, Rectangle world, int numStripes) {
+      this.a = a;
+      this.b = b;
+      this.filter = filter;
+      this.out = out;
+      this.minX = world.getMinX();
+      this.stripeWidth = world.getWidth() / numStripes;
+      this.numStripes = numStripes;
+      this.aOffsets = new int[numStripes + 1];
+      this.aMembers = assign(a, aOffsets);
+      this.bOffsets = new int[numStripes + 1];
+      this.bMembers = assign(b, bOffsets);
+    }
+
+    int stripeOf(double x) {
+      int s = (int) ((x - minX) / stripeWidth);
+      return s < 0 ? 0 : (s >= numStripes ? numStripes - 1 : s);
+    }
+
+    private int[] assign(BoxList boxes, int[] offsets) {
+      for (int i = 0; i < boxes.size; i++) {
+        for (int s = stripeOf(boxes.minX[i]), last = stripeOf(boxes.maxX[i]); s <= last; s++)
+          offsets[s + 1]++;
+      }
+      for (int s = 0; s < numStripes; s++)
+        offsets[s + 1] += offsets[s];
+      int[] members = new int[offsets[numStripes]];
+      int[] next = offsets.clone();
+      for (int i = 0; i < boxes.size; i++) {
+        for (int s = stripeOf(boxes.minX[i]), last = stripeOf(boxes.maxX[i]); s <= last; s++)
+          members[next[s]++] = i;
+      }
+      return members;
+    }
+
+    /** A forward-scan plane sweep over the stripe's boxes sorted by minX. */
+    void join(int s) {
+      final int aFrom = aOffsets[s], aTo = aOffsets[s + 1];
+      final int bFrom = bOffsets[s], bTo = bOffsets[s + 1];
+      if (aFrom == aTo || bFrom == bTo)
+        return;
+      IndexSorter.sort(aMembers, aFrom, aTo, a.minX);
+      IndexSorter.sort(bMembers, bFrom, bTo, b.minX);
+      //sequential copies in sweep order; the scans are much faster than through the permutation
+      final double[] aBounds = sortedBounds(a, aMembers, aFrom, aTo);
+      final double[] bBounds = sortedBounds(b, bMembers, bFrom, bTo);
+      final int na = aTo - aFrom, nb = bTo - bFrom;
+      int i = 0, j = 0;
+      while (i < na && j < nb) {
+        if (aBounds[i * 4] <= bBounds[j * 4]) {
+          final double maxX = aBounds[i * 4 + 1], minY = aBounds[i * 4 + 2], maxY = aBounds[i * 4 + 3];
+          for (int k = j; k < nb && bBounds[k * 4] <= maxX; k++) {
+            if (bBounds[k * 4 + 2] <= maxY && bBounds[k * 4 + 3] >= minY)
+              candidate(s, aMembers[aFrom + i], bMembers[bFrom + k]);
+          }
+          i++;
+        } else {
+          final double maxX = bBounds[j * 4 + 1], minY = bBounds[j * 4 + 2], maxY = bBounds[j * 4 + 3];
+          for (int k = i; k < na && aBounds[k * 4] <= maxX; k++) {
+            if (aBounds[k * 4 + 2] <= maxY && aBounds[k * 4 + 3] >= minY)
+              candidate(s, aMembers[aFrom + k], bMembers[bFrom + j]);
+          }
+          j++;
+        }
+      }
+    }
+
+    /** minX, maxX, minY, maxY of each box in {@code members[from, to)}. */
+    private static double[] sortedBounds(BoxList boxes, int[] members, int from, int to) {
+      double[] bounds = new double[(to - from) * 4];
+      for (int i = from, o = 0; i < to; i++, o += 4) {
+        int box = members[i];
+        bounds[o] = boxes.minX[box];
+        bounds[o + 1] = boxes.maxX[box];
+        bounds[o + 2] = boxes.minY[box];
+        bounds[o + 3] = boxes.maxY[box];
+      }
+      return bounds;
+    }
+
+    /** Boxes {@code ai} and {@code bj} overlap. */
+    private void candidate(int s, int ai, int bj) {
+      if (stripeOf(Math.max(a.minX[ai], b.minX[bj])) != s)
+        return;//another stripe reports it
+      if ((a.hasSplits || b.hasSplits) && !isFirstPiecePair(ai, bj))
+        return;
+      int leftId = a.ids[ai], rightId = b.ids[bj];
+      if (filter.matches(leftId, rightId))
+        out.accept(leftId, rightId);
+    }
+
+    /**
+     * Whether this is the first pair of pieces, ordered by reference point, of the two boxes'
+     * shapes that overlap.  A split shape's pieces are consecutive in its BoxList.
+     */
+    private boolean isFirstPiecePair(int ai, int bj) {
+      final double ref = Math.max(a.minX[ai], b.minX[bj]);
+      for (int qa = Math.max(0, ai - 1); qa <= ai + 1 && qa < a.size; qa++) {
+        if (a.ids[qa] != a.ids[ai])
+          continue;
+        for (int qb = Math.max(0, bj - 1); qb <= bj + 1 && qb < b.size; qb++) {
+          if (b.ids[qb] != b.ids[bj] || qa == ai && qb == bj)
+            continue;
+          if (a.minX[qa] > b.maxX[qb] || a.maxX[qa] < b.minX[qb]
+              || a.minY[qa] > b.maxY[qb] || a.maxY[qa] < b.minY[qb])
+            continue;
+          double qRef = Math.max(a.minX[qa], b.minX[qb]);
+          if (qRef < ref || qRef == ref && (qa < ai || qa == ai && qb < bj))
+            return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** The boxes of one list sorted by minX, for {@link #anyIntersect(List, SpatialContext, ForkJoinPool)}. */
+  private static final class SelfSweep {
+    final List<? extends Shape> shapes;
+    final int size;
+    final double[] bounds;//minX, maxX, minY, maxY of each box in sweep order
+    final int[] ids;
+
+    SelfSweep(BoxList boxes, List<? extends Shape> shapes) {
+      this.shapes = shapes;
+      this.size = boxes.size;
+      int[] order = boxes.identityOrder();
+      IndexSorter.sort(order, 0, size, boxes.minX);
+      this.bounds = Stripes.sortedBounds(boxes, order, 0, size);
+      this.ids = new int[size];
+      for (int i = 0; i < size; i++)
+        ids[i] = boxes.ids[order[i]];
+    }
+
+    /**
+     * Whether any box in [from, to) overlaps a later box and their shapes intersect.  Stops early
+     * if {@code stop} becomes true.
+     */
+    boolean anyIntersects(int from, int to, AtomicBoolean stop) {
+      for (int i = from; i < to; i++) {
+        if (stop != null && stop.get())
+          return false;
+        final double maxX = bounds[i * 4 + 1], minY = bounds[i * 4 + 2], maxY = bounds[i * 4 + 3];
+        //boxes after i start at or after its minX; they overlap on X until one starts after maxX
+        for (int j = i + 1; j < size && bounds[j * 4] <= maxX; j++) {
+          if (ids[j] == ids[i] || bounds[j * 4 + 2] > maxY || bounds[j * 4 + 3] < minY)
+            continue;
+          if (shapes.get(ids[i]).relate(shapes.get(ids[j])).intersects())
+            return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /** Sweeps a range of boxes, forking while it's bigger than {@code leafSize}. */
+  private static class SelfSweepTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    final SelfSweep sweep;
+    final int from, to, leafSize;
+    final AtomicBoolean found;
+
+    SelfSweepTask(SelfSweep sweep, int from, int to, int leafSize, AtomicBoolean found) {
+      this.sweep = sweep;
+      this.from = from;
+      this.to = to;
+      this.leafSize = leafSize;
+      this.found = found;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= leafSize) {
+        if (sweep.anyIntersects(from, to, found))
+          found.set(true);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new SelfSweepTask(sweep, from, mid, leafSize, found),
+          new SelfSweepTask(sweep, mid, to, leafSize, found));
+    }
+  }
+
+  /** Joins a range of stripes, forking when there's more than one. */
+  private static class StripeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    final Stripes stripes;
+    final int from, to;
+
+    StripeTask(Stripes stripes, int from, int to) {
+      this.stripes = stripes;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1 && getPool() != null) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new StripeTask(stripes, from, mid), new StripeTask(stripes, mid, to));
+        return;
+      }
+      for (int s = from; s < to; s++)
+        stripes.join(s);
+    }
+  }
+}
@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.index;
+
+import com.spatial4j.core.SpatialPredicate;
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.distance.DistanceCalculator;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A read-only R-Tree over the bounding boxes of a list of shapes, bulk-loaded with the
+ * Sort-Tile-Recursive (STR) algorithm. Queries first compare bounding boxes and then call {@link
+ * Shape#relate(Shape)} (via a {@link SpatialPredicate}) only on the shapes whose bounding box
+ * intersects that of the query.
+ * <p/>
+ * The tree is "packed": every node but the last one of a level is full, and the nodes are held in
+ * flat primitive arrays instead of objects. In a geospatial context, a bounding box that crosses
+ * the dateline is indexed as two pieces, and a query rectangle crossing the dateline is handled
+ * too.  Any shape is reported at most once per query.
+ * <p/>
+ * Thread-safe & immutable, provided the shapes aren't modified.
+ *
+ * @see <a href="http://www.dtic.mil/dtic/tr/fulltext/u2/a324493.pdf">STR: A Simple and Efficient
+ * Algorithm for R-Tree Packing</a>
+ */
+public class StrTree<S extends Shape> {
+
+  public static final int DEFAULT_NODE_CAPACITY = 16;
+
+  /** Receives the shapes found by a query. */
+  public interface Visitor<S> {
+    /**
+     * @param index The index of the shape in {@link StrTree#getShapes()}.
+     * @return false to stop visiting; true to continue.
+     */
+    boolean visit(int index, S shape);
+  }
+
+  protected final SpatialContext ctx;
+  protected final List<S> shapes;
+  private final int nodeCapacity;
+
+  private final boolean hasSplits;//if true then a shape may be found via 2 entries
+  private final int numEntries;
+  private final double[] entryBounds;//minX, maxX, minY, maxY per entry
+  private final int[] entryIds;
+  /** Node bounds per level, 4 per node like entryBounds. Level 0 are the leaves. The last is the root. */
+  private final double[][] levelBounds;
+
+  public StrTree(List<S> shapes, SpatialContext ctx) {
+    this(shapes, DEFAULT_NODE_CAPACITY, ctx);
+  }
+
+  /**
+   * @param shapes Copied by reference! Must implement RandomAccess.
+   * @param nodeCapacity The maximum number of children per node; >= 2.
+   */
+  public StrTree(List<S> shapes, int nodeCapacity, SpatialContext ctx) {
+    this(shapes, nodeCapacity, false, ctx);
+  }
+
+  /**
+   * @param shapes Copied by reference! Must implement RandomAccess.
+   * @param nodeCapacity The maximum number of children per node; >= 2.
+   * @param inListOrder If true then the shapes are packed into leaves in list order instead of
+   *                    sorted by STR. This is faster to build and better when consecutive shapes
+   *                    are near each other, such as the segments of a line string.
+   */
+  public StrTree(List<S> shapes, int nodeCapacity, boolean inListOrder, SpatialContext ctx) {
+    if (!(shapes instanceof RandomAccess))
+      throw new IllegalArgumentException("Shapes arg must implement RandomAccess: "+shapes.getClass());
+    if (nodeCapacity < 2)
+      throw new IllegalArgumentException("nodeCapacity must be >= 2: " + nodeCapacity);
+    this.ctx = ctx;
+    this.shapes = shapes;
+    this.nodeCapacity = nodeCapacity;
+
+    BoxList boxes = new BoxList(shapes.size());
+    for (int i = 0; i < shapes.size(); i++) {
+      boxes.add(shapes.get(i), i, ctx);
+    }
+    this.hasSplits = boxes.hasSplits;
+    this.numEntries = boxes.size;
+
+    int[] order = inListOrder ? boxes.identityOrder() : sortTileRecursive(boxes, nodeCapacity);
+    this.entryBounds = new double[numEntries * 4];
+    this.entryIds = new int[numEntries];
+    for (int i = 0; i < numEntries; i++) {
+      int b = order[i];
+      entryBounds[i * 4] = boxes.minX[b];
+      entryBounds[i * 4 + 1] = boxes.maxX[b];
+      entryBounds[i * 4 + 2] = boxes.minY[b];
+      entryBounds[i * 4 + 3] = boxes.maxY[b];
+      entryIds[i] = boxes.ids[b];
+    }
+    this.levelBounds = buildLevels(entryBounds, nodeCapacity);
+  }
+
+  /**
+   * Orders the boxes so that consecutive runs of {@code nodeCapacity} make good leaves: the boxes
+   * are sorted by x center into vertical slices, and each slice is sorted by y center. The slices
+   * alternate direction so that the last leaf of a slice is near the first of the next.
+   */
+  private static int[] sortTileRecursive(BoxList boxes, int nodeCapacity) {
+    final int n = boxes.size;
+    int[] order = boxes.identityOrder();
+    if (n <= nodeCapacity)
+      return order;
+    IndexSorter.sort(order, 0, n, boxes.centersX());
+    int numLeaves = (n + nodeCapacity - 1) / nodeCapacity;
+    int numSlices = (int) Math.ceil(Math.sqrt(numLeaves));
+    int sliceLen = numSlices * nodeCapacity;
+    double[] centersY = boxes.centersY();
+    for (int s = 0, from = 0; from < n; s++, from += sliceLen) {
+      int to = Math.min(n, from + sliceLen);
+      IndexSorter.sort(order, from, to, centersY);
+      if ((s & 1) == 1)
+        IndexSorter.reverse(order, from, to);
+    }
+    return order;
+  }
+
+  /** Groups consecutive runs of children into parents, level by level, until there's one root. */
+  private static double[][] buildLevels(double[] childBounds, int nodeCapacity) {
+    List<double[]> levels = new ArrayList<double[]>();
+    int numChildren = childBounds.length / 4;
+    while (numChildren > 1 || levels.isEmpty() && numChildren == 1) {
+      int numNodes = (numChildren + nodeCapacity - 1) / nodeCapacity;
+      double[] nodeBounds = new double[numNodes * 4];
+      for (int node = 0; node < numNodes; node++) {
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        int end = Math.min(numChildren, (node + 1) * nodeCapacity);
+        for (int c = node * nodeCapacity; c < end; c++) {
+          minX = Math.min(minX, childBounds[c * 4]);
+          maxX = Math.max(maxX, childBounds[c * 4 + 1]);
+          minY = Math.min(minY, childBounds[c * 4 + 2]);
+          maxY = Math.max(maxY, childBounds[c * 4 + 3]);
+        }
+        nodeBounds[node * 4] = minX;
+        nodeBounds[node * 4 + 1] = maxX;
+        nodeBounds[node * 4 + 2] = minY;
+        nodeBounds[node * 4 + 3] = maxY;
+      }
+      levels.add(nodeBounds);
+      childBounds = nodeBounds;
+      numChildren = numNodes;
+    }
+    return levels.toArray(new double[levels.size()][]);
+  }
+
+  /**
+   * Visits the shapes whose bounding box intersects the bounding box of {@code queryShape}, each at
+   * most once, in no particular order. The shapes visited are candidates; call {@link
+   * Shape#relate(Shape)} to know the actual relationship.
+   *
+   * @return false if the visitor stopped the search early, otherwise true.
+   */
+  public boolean visitCandidates(Shape queryShape, Visitor<? super S> visitor) {
+    if (levelBounds.length == 0 || queryShape.isEmpty())
+      return true;
+    QueryBox query = new QueryBox(queryShape, ctx);
+    BitSet seen = hasSplits ? new BitSet(shapes.size()) : null;
+    return visitNode(levelBounds.length - 1, 0, query, visitor, seen);
+  }
+
+  private boolean visitNode(int level, int node, QueryBox query, Visitor<? super S> visitor, BitSet seen) {
+    final int childLevel = level - 1;
+    final double[] childBounds = childLevel < 0 ? entryBounds : levelBounds[childLevel];
+    final int end = Math.min(childBounds.length / 4, (node + 1) * nodeCapacity);
+    for (int c = node * nodeCapacity; c < end; c++) {
+      if (!query.intersects(childBounds, c * 4))
+        continue;
+      if (childLevel >= 0) {
+        if (!visitNode(childLevel, c, query, visitor, seen))
+          return false;
+      } else {
+        int id = entryIds[c];
+        if (seen != null) {
+          if (seen.get(id))
+            continue;
+          seen.set(id);
+        }
+        if (!visitor.visit(id, shapes.get(id)))
+          return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the shapes that satisfy {@code predicate.evaluate(shape, queryShape)}. The bounding boxes
+   * narrow the search for every predicate except {@link SpatialPredicate#IsDisjointTo}, which must
+   * consider every shape. Custom predicates are assumed to never be satisfied by a shape
+   * whose bounding box is disjoint from the query.
+   *
+   * @return A new list, in no particular order.
+   */
+  public List<S> search(final Shape queryShape, final SpatialPredicate predicate) {
+    final List<S> results = new ArrayList<S>();
+    if (queryShape.isEmpty() || predicate == SpatialPredicate.IsDisjointTo) {
+      //The bounding boxes don't help; evaluate everything that isn't already known disjoint
+      final BitSet candidates = new BitSet(shapes.size());
+      visitCandidates(queryShape, new Visitor<S>() {
+        @Override
+        public boolean visit(int index, S shape) {
+          candidates.set(index);
+          return true;
+        }
+      });
+      final boolean disjoint = (predicate == SpatialPredicate.IsDisjointTo);
+      for (int i = 0; i < shapes.size(); i++) {
+        S shape = shapes.get(i);
+        if (disjoint && !candidates.get(i) || predicate.evaluate(shape, queryShape))
+          results.add(shape);
+      }
+      return results;
+    }
+    visitCandidates(queryShape, new Visitor<S>() {
+      @Override
+      public boolean visit(int index, S shape) {
+        if (predicate.evaluate(shape, queryShape))
+          results.add(shape);
+        return true;
+      }
+    });
+    return results;
+  }
+
+  /**
+   * Finds the {@code k} shapes nearest to {@code origin} within {@code maxDist}, by distance from
+   * {@link SpatialContext#getDistCalc()}.  The distance to a shape that isn't a {@link Point} is to
+   * its center.  Nodes are visited best-first, ordered by a lower bound of the distance to their
+   * box; in a geospatial context the bound is geodesic (see {@link #minDistance(Point, double[], int)}).
+   *
+   * @param maxDist {@link Double#POSITIVE_INFINITY} for no limit.
+   * @return the neighbors, sorted by ascending distance.
+   */
+  public NearestNeighbors knn(Point origin, int k, double maxDist) {
+    return knn(origin, k, maxDist, null);
+  }
+
+  /**
+   * Like {@link #knn(Point, int, double)}, but resets & fills {@code reuse} if it's not null.
+   */
+  public NearestNeighbors knn(Point origin, int k, double maxDist, NearestNeighbors reuse) {
+    NearestNeighbors results = reuse;
+    if (results == null)
+      results = new NearestNeighbors(k);
+    else
+      results.reset(k);
+    if (levelBounds.length == 0 || origin.isEmpty())
+      return results;
+    final DistanceCalculator distCalc = ctx.getDistCalc();
+    BitSet seen = hasSplits ? new BitSet(shapes.size()) : null;
+    NodeQueue queue = new NodeQueue();
+    queue.add(0, levelBounds.length - 1, 0);//the root
+    while (queue.size > 0) {
+      double bound = queue.peekDistance();
+      if (bound > maxDist || results.isFullAndCloser(bound))
+        break;//no remaining node can have a nearer shape
+      long levelNode = queue.poll();
+      int level = (int) (levelNode >>> 32), node = (int) levelNode;
+      final int childLevel = level - 1;
+      final double[] childBounds = childLevel < 0 ? entryBounds : levelBounds[childLevel];
+      final int end = Math.min(childBounds.length / 4, (node + 1) * nodeCapacity);
+      for (int c = node * nodeCapacity; c < end; c++) {
+        if (childLevel >= 0) {
+          double childBound = minDistance(origin, childBounds, c * 4);
+          if (childBound <= maxDist && !results.isFullAndCloser(childBound))
+            queue.add(childBound, childLevel, c);
+          continue;
+        }
+        int id = entryIds[c];
+        if (seen != null) {
+          if (seen.get(id))
+            continue;
+          seen.set(id);
+        }
+        S shape = shapes.get(id);
+        Point point = shape instanceof Point ? (Point) shape : shape.getCenter();
+        double dist = distCalc.distance(origin, point);
+        if (dist <= maxDist)
+          results.offer(id, dist);
+      }
+    }
+    results.sort();
+    return results;
+  }
+
+  /**
+   * A lower bound of the distance from {@code p} to any point in the box at {@code off} in
+   * {@code bounds}; it's 0 if the box contains p.  In a geospatial context it's the great circle
+   * distance: if p's longitude is within the box's then it's the latitude difference to the box,
+   * otherwise the nearest point is on one of the box's meridian edges (a parallel edge is nearest
+   * at a corner), which is either where the great circle through p perpendicular to the meridian
+   * crosses it, or an end of the edge.
+   */
+  private double minDistance(Point p, double[] bounds, int off) {
+    final double minX = bounds[off], maxX = bounds[off + 1], minY = bounds[off + 2], maxY = bounds[off + 3];
+    final double x = p.getX(), y = p.getY();
+    final DistanceCalculator distCalc = ctx.getDistCalc();
+    if (!ctx.isGeo()) {
+      return distCalc.distance(p, Math.max(minX, Math.min(maxX, x)), Math.max(minY, Math.min(maxY, y)));
+    }
+    if (x >= minX && x <= maxX) {
+      return y < minY ? minY - y : (y > maxY ? y - maxY : 0);
+    }
+    return Math.min(minDistanceToMeridian(p, minX, minY, maxY), minDistanceToMeridian(p, maxX, minY, maxY));
+  }
+
+  private double minDistanceToMeridian(Point p, double lon, double minY, double maxY) {
+    final DistanceCalculator distCalc = ctx.getDistCalc();
+    double latRad = Math.toRadians(p.getY());
+    double cosDeltaLon = Math.cos(Math.toRadians(lon - p.getX()));
+    //the latitude on the (whole) meridian circle nearest p; it might be on the far side of a pole
+    double nearestLat = Math.toDegrees(Math.atan2(Math.sin(latRad), Math.cos(latRad) * cosDeltaLon));
+    double dist = Math.min(distCalc.distance(p, lon, minY), distCalc.distance(p, lon, maxY));
+    if (nearestLat > minY && nearestLat < maxY)
+      dist = Math.min(dist, distCalc.distance(p, lon, nearestLat));
+    return dist;
+  }
+
+  /** A min-heap of nodes (level & index) by distance, in primitive arrays. */
+  private static final class NodeQueue {
+    double[] distances = new double[32];
+    long[] levelNodes = new long[32];
+    int size;
+
+    void add(double distance, int level, int node) {
+      if (size == distances.length) {
+        distances = Arrays.copyOf(distances, size * 2);
+        levelNodes = Arrays.copyOf(levelNodes, size * 2);
+      }
+      long levelNode = ((long) level << 32) | (node & 0xFFFFFFFFL);
+      int i = size++;
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (distances[parent] <= distance)
+          break;
+        distances[i] = distances[parent];
+        levelNodes[i] = levelNodes[parent];
+        i = parent;
+      }
+      distances[i] = distance;
+      levelNodes[i] = levelNode;
+    }
+
+    double peekDistance() {
+      return distances[0];
+    }
+
+    long poll() {
+      long result = levelNodes[0];
+      size--;
+      double distance = distances[size];
+      long levelNode = levelNodes[size];
+      int i = 0;
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= size)
+          break;
+        if (child + 1 < size && distances[child + 1] < distances[child])
+          child++;
+        if (distances[child] >= distance)
+          break;
+        distances[i] = distances[child];
+        levelNodes[i] = levelNodes[child];
+        i = child;
+      }
+      distances[i] = distance;
+      levelNodes[i] = levelNode;
+      return result;
+    }
+  }
+
+  public List<S> getShapes() {
+    return shapes;
+  }
+
+  public int size() {
+    return shapes.size();
+  }
+
+  public int getNodeCapacity() {
+    return nodeCapacity;
+  }
+
+  /** The number of levels of nodes above the entries; 0 if empty. */
+  public int getHeight() {
+    return levelBounds.length;
+  }
+
+  @Override
+  public String toString() {
+    return "StrTree{size=" + shapes.size() + ", entries=" + numEntries + ", height=" + getHeight() + '}';
+  }
+
+  /**
+   * The bounding box of a query, tested against node & entry boxes (which never cross the
+   * dateline). In a geospatial context, x = -180 and x = +180 are the same place.
+   */
+  private static final class QueryBox {
+    final double minX, maxX, minY, maxY;
+    final boolean crossesDateline;
+    final boolean touchesEast, touchesWest;//touches +180 or -180
+    final double worldMinX, worldMaxX;
+
+    QueryBox(Shape shape, SpatialContext ctx) {
+      if (shape instanceof Point) {
+        Point p = (Point) shape;
+        minX = maxX = p.getX();
+        minY = maxY = p.getY();
+      } else {
+        Rectangle r = shape.getBoundingBox();
+        minX = r.getMinX();
+        maxX = r.getMaxX();
+        minY = r.getMinY();
+        maxY = r.getMaxY();
+      }
+      Rectangle worldBounds = ctx.getWorldBounds();
+      worldMinX = worldBounds.getMinX();
+      worldMaxX = worldBounds.getMaxX();
+      crossesDateline = ctx.isGeo() && minX > maxX;
+      touchesEast = ctx.isGeo() && maxX >= worldMaxX;
+      touchesWest = ctx.isGeo() && minX <= worldMinX;
+    }
+
+    boolean intersects(double[] bounds, int off) {
+      if (bounds[off + 2] > maxY || bounds[off + 3] < minY)
+        return false;
+      final double bMinX = bounds[off], bMaxX = bounds[off + 1];
+      if (crossesDateline)
+        return bMaxX >= minX || bMinX <= maxX;
+      return (bMinX <= maxX && bMaxX >= minX)
+          || (touchesEast && bMinX <= worldMinX)
+          || (touchesWest && bMaxX >= worldMaxX);
+    }
+  }
+}
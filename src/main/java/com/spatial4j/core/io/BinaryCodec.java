@@ -25,6 +25,7 @@ import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.Rectangle;
 import com.spatial4j.core.shape.Shape;
 import com.spatial4j.core.shape.ShapeCollection;
+import com.spatial4j.core.shape.impl.MultiPoint;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -45,7 +46,8 @@ public class BinaryCodec {
       TYPE_RECT = 2,
       TYPE_CIRCLE = 3,
       TYPE_COLL = 4,
-      TYPE_GEOM = 5;
+      TYPE_GEOM = 5,
+      TYPE_MULTIPOINT = 6;
 
   //TODO support BufferedLineString
 
@@ -76,6 +78,7 @@ public class BinaryCodec {
       case TYPE_RECT: return readRect(dataInput);
       case TYPE_CIRCLE: return readCircle(dataInput);
       case TYPE_COLL: return readCollection(dataInput);
+      case TYPE_MULTIPOINT: return readMultiPoint(dataInput);
       default: return null;
     }
   }
@@ -94,6 +97,7 @@ public class BinaryCodec {
       case TYPE_RECT: writeRect(dataOutput, (Rectangle) s); break;
       case TYPE_CIRCLE: writeCircle(dataOutput, (Circle) s); break;
       case TYPE_COLL: writeCollection(dataOutput, (ShapeCollection) s); break;
+      case TYPE_MULTIPOINT: writeMultiPoint(dataOutput, (MultiPoint) s); break;
       default:
         return false;
     }
@@ -107,6 +111,8 @@ public class BinaryCodec {
       return TYPE_RECT;
     } else if (s instanceof Circle) {
       return TYPE_CIRCLE;
+    } else if (s instanceof MultiPoint) {
+      return TYPE_MULTIPOINT;
     } else if (s instanceof ShapeCollection) {
       return TYPE_COLL;
     } else {
@@ -184,4 +190,23 @@ public class BinaryCodec {
     }
   }
 
+  public MultiPoint readMultiPoint(DataInput dataInput) throws IOException {
+    int size = dataInput.readInt();
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    for (int i = 0; i < size; i++) {
+      xs[i] = readDim(dataInput);
+      ys[i] = readDim(dataInput);
+    }
+    return ctx.makeMultiPoint(xs, ys);
+  }
+
+  public void writeMultiPoint(DataOutput dataOutput, MultiPoint multiPoint) throws IOException {
+    dataOutput.writeInt(multiPoint.size());
+    for (int i = 0; i < multiPoint.size(); i++) {
+      writeDim(dataOutput, multiPoint.getX(i));
+      writeDim(dataOutput, multiPoint.getY(i));
+    }
+  }
+
 }
@@ -34,6 +34,7 @@ import com.spatial4j.core.context.SpatialContextFactory;
 import com.spatial4j.core.exception.InvalidShapeException;
 import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.ShapeCollection;
 
 
 
@@ -203,6 +204,21 @@ public class GeoJSONReader implements ShapeReader {
     return out;
   }
 
+  protected Shape readMultiPoint(JSONParser parser) throws IOException, ParseException {
+    assert (parser.lastEvent() == JSONParser.ARRAY_START);
+    List<double[]> coords = readCoordListXY(parser);
+
+    double[] xs = new double[coords.size()];
+    double[] ys = new double[coords.size()];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = coords.get(i)[0];
+      ys[i] = coords.get(i)[1];
+    }
+    Shape out = ctx.makeMultiPoint(xs, ys);
+    readUntilEvent(parser, JSONParser.OBJECT_END);
+    return out;
+  }
+
   /**
    * This method takes a polygon and makes a bbox from it
    * 
@@ -281,6 +297,8 @@ public class GeoJSONReader implements ShapeReader {
               shape = readPoint(parser);
             } else if ("LineString".equals(type)) {
               shape = readLineString(parser);
+            } else if ("MultiPoint".equals(type)) {
+              shape = readMultiPoint(parser);
             } else {
               shape = makeShapeFromCoords(type, readCoordinates(parser));
             }
@@ -291,7 +309,7 @@ public class GeoJSONReader implements ShapeReader {
             throw new ParseException("Unable to make shape type: " + type,
                 (int) parser.getPosition());
           } else if ("geometries".equals(key)) {
-            List<Shape> shapes = new ArrayList<Shape>();
+            ShapeCollection.Builder<Shape> shapes = ctx.newCollectionBuilder();
             int sub = parser.nextEvent();
             while (sub != JSONParser.EOF) {
               if (sub == JSONParser.OBJECT_START) {
@@ -308,7 +326,7 @@ public class GeoJSONReader implements ShapeReader {
               throw new ParseException("Shape Collection with now geometries!",
                   (int) parser.getPosition());
             }
-            return ctx.makeCollection(shapes);
+            return shapes.build();
           }
           break;
 
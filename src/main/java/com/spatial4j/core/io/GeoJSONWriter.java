@@ -34,6 +34,7 @@ import com.spatial4j.core.shape.ShapeCollection;
 import com.spatial4j.core.shape.impl.BufferedLine;
 import com.spatial4j.core.shape.impl.BufferedLineString;
 import com.spatial4j.core.shape.impl.GeoCircle;
+import com.spatial4j.core.shape.impl.MultiPoint;
 
 
 
@@ -145,6 +146,18 @@ public class GeoJSONWriter implements ShapeWriter {
       }
       return;
     }
+    if (shape instanceof MultiPoint) {
+      MultiPoint v = (MultiPoint) shape;
+      output.append("{\"type\":\"MultiPoint\",\"coordinates\":[");
+      for (int i = 0; i < v.size(); i++) {
+        if (i > 0) {
+          output.append(',');
+        }
+        write(output, nf, v.getX(i), v.getY(i));
+      }
+      output.append("]}");
+      return;
+    }
     if (shape instanceof ShapeCollection) {
       ShapeCollection v = (ShapeCollection) shape;
       output.append("{\"type\":\"GeometryCollection\",\"geometries\": [");
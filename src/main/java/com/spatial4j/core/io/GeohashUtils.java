@@ -18,10 +18,19 @@
 package com.spatial4j.core.io;
 
 import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.distance.DistanceUtils;
 import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.SpatialRelation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Utilities for encoding and decoding <a href="http://en.wikipedia.org/wiki/Geohash">geohashes</a>.
@@ -45,6 +54,13 @@ public class GeohashUtils {
   public static final int MAX_PRECISION = 24;//DWS: I forget what level results in needless more precision but it's about this
   private static final int[] BITS = {16, 8, 4, 2, 1};
 
+  /** The maximum precision of the long form of a geohash; 60 of its 64 bits. */
+  public static final int MAX_LONG_PRECISION = 12;
+  //at MAX_LONG_PRECISION, longitude and latitude each have 30 bits
+  private static final long CELL_MASK = (1L << 30) - 1;
+  private static final double LON_CELL_WIDTH = 360.0 / (1L << 30);
+  private static final double LAT_CELL_HEIGHT = 180.0 / (1L << 30);
+
   static {
     BASE_32_IDX = new int[BASE_32[BASE_32.length-1] - BASE_32[0] + 1];
     assert BASE_32_IDX.length < 100;//reasonable length
@@ -69,6 +85,8 @@ public class GeohashUtils {
   }
 
   public static String encodeLatLon(double latitude, double longitude, int precision) {
+    if (precision <= MAX_LONG_PRECISION)
+      return longToGeohash(encodeLatLonAsLong(latitude, longitude, precision), precision);
     double[] latInterval = {-90.0, 90.0};
     double[] lngInterval = {-180.0, 180.0};
 
@@ -112,6 +130,314 @@ public class GeohashUtils {
     return geohash.toString();
   }
 
+  /**
+   * Encodes the given latitude and longitude into a geohash of {@code precision} characters as a
+   * long holding its 5 * precision bits (not a packed string).  The result is the same as {@link
+   * #geohashToLong(String)} of {@link #encodeLatLon(double, double, int)}, and like it, it's sorted
+   * by the geohash string for the same precision, but it's computed without allocating by
+   * quantizing each coordinate and interleaving the bits, instead of bisecting one bit at a time.
+   *
+   * @param precision 1 to {@link #MAX_LONG_PRECISION}
+   */
+  public static long encodeLatLonAsLong(double latitude, double longitude, int precision) {
+    checkLongPrecision(precision);
+    long lonBits = quantize(longitude, -180, LON_CELL_WIDTH);
+    long latBits = quantize(latitude, -90, LAT_CELL_HEIGHT);
+    long hash = (spreadBits(lonBits) << 1) | spreadBits(latBits);//longitude is the first bit
+    return hash >>> (5 * (MAX_LONG_PRECISION - precision));
+  }
+
+  /**
+   * Encodes each lats[i], lons[i] like {@link #encodeLatLonAsLong(double, double, int)} into
+   * {@code out}, which is created if null.
+   *
+   * @param pool if non-null then large arrays are encoded in parallel with it.
+   * @return {@code out}
+   */
+  public static long[] encodeLatLonAsLong(double[] lats, double[] lons, int precision, long[] out,
+                                          ForkJoinPool pool) {
+    if (lats.length != lons.length)
+      throw new IllegalArgumentException("lats and lons must be the same length: "
+          + lats.length + " != " + lons.length);
+    checkLongPrecision(precision);
+    if (out == null)
+      out = new long[lats.length];
+    else if (out.length < lats.length)
+      throw new IllegalArgumentException("out is shorter than lats: " + out.length);
+    EncodeTask task = new EncodeTask(lats, lons, precision, out, 0, lats.length);
+    if (pool != null)
+      pool.invoke(task);
+    else
+      task.compute();
+    return out;
+  }
+
+  /** Encodes a range of the points, forking when there are many. */
+  private static class EncodeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MIN_FORK = 8192;
+
+    final double[] lats, lons;
+    final int precision;
+    final long[] out;
+    final int from, to;
+
+    EncodeTask(double[] lats, double[] lons, int precision, long[] out, int from, int to) {
+      this.lats = lats;
+      this.lons = lons;
+      this.precision = precision;
+      this.out = out;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > MIN_FORK && getPool() != null) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new EncodeTask(lats, lons, precision, out, from, mid),
+            new EncodeTask(lats, lons, precision, out, mid, to));
+        return;
+      }
+      for (int i = from; i < to; i++)
+        out[i] = encodeLatLonAsLong(lats[i], lons[i], precision);
+    }
+  }
+
+  /** The geohash string of a long from {@link #encodeLatLonAsLong(double, double, int)}. */
+  public static String longToGeohash(long hash, int precision) {
+    checkLongPrecision(precision);
+    char[] chars = new char[precision];
+    for (int i = precision - 1; i >= 0; i--) {
+      chars[i] = BASE_32[(int) (hash & 0x1F)];
+      hash >>>= 5;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * The long form of a geohash, as returned by {@link #encodeLatLonAsLong(double, double, int)};
+   * its precision is the length of the geohash.
+   */
+  public static long geohashToLong(String geohash) {
+    checkLongPrecision(geohash.length());
+    long hash = 0;
+    for (int i = 0; i < geohash.length(); i++)
+      hash = (hash << 5) | base32Index(geohash.charAt(i));
+    return hash;
+  }
+
+  /**
+   * Like {@link #decodeBoundary(String, com.spatial4j.core.context.SpatialContext, com.spatial4j.core.shape.Rectangle)}
+   * but for the long form of a geohash.
+   */
+  public static Rectangle decodeBoundary(long hash, int precision, SpatialContext ctx, Rectangle reuse) {
+    checkLongPrecision(precision);
+    int numBits = 5 * precision;
+    long bits = hash << (5 * MAX_LONG_PRECISION - numBits);//as if at MAX_LONG_PRECISION
+    double minX = -180 + compactBits(bits >>> 1) * LON_CELL_WIDTH;
+    double minY = -90 + compactBits(bits) * LAT_CELL_HEIGHT;
+    double maxX = minX + 360.0 / (1L << ((numBits + 1) / 2));//longitude gets the extra odd bit
+    double maxY = minY + 180.0 / (1L << (numBits / 2));
+    if (reuse == null)
+      return ctx.makeRectangle(minX, maxX, minY, maxY);
+    reuse.reset(minX, maxX, minY, maxY);
+    return reuse;
+  }
+
+  /**
+   * The geohash {@code dx} cells east and {@code dy} cells north of the given one, at the same
+   * precision.  Longitude wraps across the dateline.  Beyond a pole, it continues on the other side
+   * of the pole (180 degrees of longitude away) going back toward the equator.
+   */
+  public static long neighbor(long hash, int precision, int dx, int dy) {
+    checkLongPrecision(precision);
+    int numBits = 5 * precision;
+    int lonBits = (numBits + 1) / 2, latBits = numBits / 2;
+    long numCols = 1L << lonBits, numRows = 1L << latBits;
+    long bits = hash << (5 * MAX_LONG_PRECISION - numBits);
+    long col = (compactBits(bits >>> 1) >>> (30 - lonBits)) + dx;
+    long row = (compactBits(bits) >>> (30 - latBits)) + dy;
+    if (row < 0 || row >= numRows) {//over a pole
+      row = row < 0 ? -row - 1 : 2 * numRows - row - 1;
+      col += numCols / 2;
+    }
+    col = ((col % numCols) + numCols) % numCols;
+    return cellFromIndexes(col, lonBits, row, latBits, precision);
+  }
+
+  /**
+   * The 8 neighbors of the geohash, starting north and going clockwise.
+   * @see #neighbor(long, int, int, int)
+   */
+  public static long[] neighbors(long hash, int precision) {
+    long[] result = new long[8];
+    for (int i = 0; i < 8; i++)
+      result[i] = neighbor(hash, precision, NEIGHBOR_DX[i], NEIGHBOR_DY[i]);
+    return result;
+  }
+
+  /**
+   * Like {@link #neighbors(long, int)} but for the string form, of any length up to {@link
+   * #MAX_PRECISION}.
+   */
+  public static String[] neighbors(String geohash) {
+    int precision = geohash.length();
+    String[] result = new String[8];
+    if (precision <= MAX_LONG_PRECISION) {
+      long hash = geohashToLong(geohash);
+      for (int i = 0; i < 8; i++)
+        result[i] = longToGeohash(neighbor(hash, precision, NEIGHBOR_DX[i], NEIGHBOR_DY[i]), precision);
+      return result;
+    }
+    //too long for a long; encode the center of each neighbor, which is exact
+    Rectangle cell = decodeBoundary(geohash, SpatialContext.GEO);
+    double width = cell.getWidth(), height = cell.getHeight();
+    double centerX = cell.getMinX() + width / 2, centerY = cell.getMinY() + height / 2;
+    for (int i = 0; i < 8; i++) {
+      double x = centerX + NEIGHBOR_DX[i] * width;
+      double y = centerY + NEIGHBOR_DY[i] * height;
+      if (y > 90 || y < -90) {//over a pole
+        y = (y > 0 ? 180 : -180) - y;
+        x += 180;
+      }
+      result[i] = encodeLatLon(y, DistanceUtils.normLonDEG(x), precision);
+    }
+    return result;
+  }
+
+  private static final int[] NEIGHBOR_DX = {0, 1, 1, 1, 0, -1, -1, -1};
+  private static final int[] NEIGHBOR_DY = {1, 1, 0, -1, -1, -1, 0, 1};
+
+  /**
+   * The geohashes of {@code precision} that are within {@code distDEG} of {@code from}, in no
+   * particular order.  The candidates are the cells intersecting {@link
+   * com.spatial4j.core.distance.DistanceCalculator#calcBoxByDistFromPt(com.spatial4j.core.shape.Point, double, com.spatial4j.core.context.SpatialContext, com.spatial4j.core.shape.Rectangle)},
+   * which handles the dateline and the poles, filtered by the circle.  Be careful to pick a
+   * precision that isn't much smaller than the distance (see {@link
+   * #lookupHashLenForWidthHeight(double, double)}) or there will be a great many cells.
+   */
+  public static long[] cellsWithinDistance(Point from, double distDEG, int precision, SpatialContext ctx) {
+    checkLongPrecision(precision);
+    int numBits = 5 * precision;
+    int lonBits = (numBits + 1) / 2, latBits = numBits / 2;
+    long numCols = 1L << lonBits;
+    Rectangle box = ctx.getDistCalc().calcBoxByDistFromPt(from, distDEG, ctx, null);
+    Shape circle = ctx.makeCircle(from, distDEG);
+
+    //the column and row ranges, including the cells that only touch the box's edges
+    long minCol = quantize(box.getMinX(), -180, LON_CELL_WIDTH) >>> (30 - lonBits);
+    long maxCol = quantizeUpper(box.getMaxX(), -180, LON_CELL_WIDTH) >>> (30 - lonBits);
+    long minRow = quantize(box.getMinY(), -90, LAT_CELL_HEIGHT) >>> (30 - latBits);
+    long maxRow = quantizeUpper(box.getMaxY(), -90, LAT_CELL_HEIGHT) >>> (30 - latBits);
+    if (box.getCrossesDateLine())
+      maxCol += numCols;
+    if (box.getWidth() >= 360) {
+      minCol = 0;
+      maxCol = numCols - 1;
+    }
+    long numCells = (maxCol - minCol + 1) * (maxRow - minRow + 1);
+    if (numCells > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Too many cells (" + numCells + ") at precision " + precision);
+
+    long[] cells = new long[(int) numCells];
+    int count = 0;
+    Rectangle cellRect = ctx.makeRectangle(-180, 180, -90, 90);//reused
+    for (long col = minCol; col <= maxCol; col++) {
+      for (long row = minRow; row <= maxRow; row++) {
+        long hash = cellFromIndexes(col % numCols, lonBits, row, latBits, precision);
+        if (circle.relate(decodeBoundary(hash, precision, ctx, cellRect)) != SpatialRelation.DISJOINT)
+          cells[count++] = hash;
+      }
+    }
+    return Arrays.copyOf(cells, count);
+  }
+
+  /**
+   * Like {@link #cellsWithinDistance(com.spatial4j.core.shape.Point, double, int, com.spatial4j.core.context.SpatialContext)}
+   * but returns geohash strings, sorted.
+   */
+  public static List<String> geohashesWithinDistance(Point from, double distDEG, int precision,
+                                                     SpatialContext ctx) {
+    long[] cells = cellsWithinDistance(from, distDEG, precision, ctx);
+    Arrays.sort(cells);//same order as the strings
+    List<String> result = new ArrayList<String>(cells.length);
+    for (long cell : cells)
+      result.add(longToGeohash(cell, precision));
+    return result;
+  }
+
+  /** Interleaves the column (longitude) and row (latitude) indexes at a precision. */
+  private static long cellFromIndexes(long col, int lonBits, long row, int latBits, int precision) {
+    long bits = (spreadBits(col << (30 - lonBits)) << 1) | spreadBits(row << (30 - latBits));
+    return bits >>> (5 * (MAX_LONG_PRECISION - precision));
+  }
+
+  private static void checkLongPrecision(int precision) {
+    if (precision < 1 || precision > MAX_LONG_PRECISION)
+      throw new IllegalArgumentException("precision must be between 1 and " + MAX_LONG_PRECISION
+          + ": " + precision);
+  }
+
+  private static int base32Index(char c) {
+    if (c >= 'A' && c <= 'Z')
+      c -= ('A' - 'a');
+    int idx = c - BASE_32[0];
+    if (idx < 0 || idx >= BASE_32_IDX.length || BASE_32_IDX[idx] < 0)
+      throw new IllegalArgumentException("Not a geohash character: '" + c + "'");
+    return BASE_32_IDX[idx];
+  }
+
+  /**
+   * The index of the cell, of size {@code cellSize} starting at {@code min}, that contains {@code v}
+   * with the same rounding as the bisection in {@link #encodeLatLon(double, double, int)}: a value
+   * on an edge belongs to the lower cell.  Cell edges are exact in double precision.
+   */
+  private static long quantize(double v, double min, double cellSize) {
+    long idx = (long) Math.floor((v - min) / cellSize);
+    if (idx < 0)
+      idx = 0;
+    else if (idx > CELL_MASK)
+      idx = CELL_MASK;
+    //the division above can round; correct it against the exact edges
+    if (idx > 0 && v <= min + idx * cellSize)
+      idx--;
+    else if (idx < CELL_MASK && v > min + (idx + 1) * cellSize)
+      idx++;
+    return idx;
+  }
+
+  /** Like {@link #quantize(double, double, double)} but a value on an edge belongs to the upper cell. */
+  private static long quantizeUpper(double v, double min, double cellSize) {
+    long idx = quantize(v, min, cellSize);
+    if (idx < CELL_MASK && v == min + (idx + 1) * cellSize)
+      idx++;
+    return idx;
+  }
+
+  /** Spreads the low 32 bits into the even bits of the result. */
+  private static long spreadBits(long v) {
+    v &= 0xFFFFFFFFL;
+    v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+    v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+    v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+    v = (v | (v << 2)) & 0x3333333333333333L;
+    v = (v | (v << 1)) & 0x5555555555555555L;
+    return v;
+  }
+
+  /** The inverse of {@link #spreadBits(long)}; the odd bits are ignored. */
+  private static long compactBits(long v) {
+    v &= 0x5555555555555555L;
+    v = (v | (v >>> 1)) & 0x3333333333333333L;
+    v = (v | (v >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+    v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+    v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+    v = (v | (v >>> 16)) & 0xFFFFFFFFL;
+    return v;
+  }
+
   /**
    * Decodes the given geohash into a latitude and longitude
    *
@@ -127,6 +453,14 @@ public class GeohashUtils {
 
   /** Returns min-max lat, min-max lon. */
   public static Rectangle decodeBoundary(String geohash, SpatialContext ctx) {
+    return decodeBoundary(geohash, ctx, null);
+  }
+
+  /**
+   * Like {@link #decodeBoundary(String, com.spatial4j.core.context.SpatialContext)} but resets
+   * {@code reuse} if not null instead of creating a new Rectangle.
+   */
+  public static Rectangle decodeBoundary(String geohash, SpatialContext ctx, Rectangle reuse) {
     double minY = -90, maxY = 90, minX = -180, maxX = 180;
     boolean isEven = true;
 
@@ -154,7 +488,10 @@ public class GeohashUtils {
       }
 
     }
-    return ctx.makeRectangle(minX, maxX, minY, maxY);
+    if (reuse == null)
+      return ctx.makeRectangle(minX, maxX, minY, maxY);
+    reuse.reset(minX, maxX, minY, maxY);
+    return reuse;
   }
 
   /** Array of geohashes 1 level below the baseGeohash. Sorted. */
@@ -167,6 +504,199 @@ public class GeohashUtils {
     return hashes;
   }
 
+  /**
+   * Computes the geohashes covering {@code shape}: those the shape contains plus those on its
+   * boundary, no longer than {@code maxLevel} and no more than {@code maxCells} of them. Sorted.
+   * @see #cover(com.spatial4j.core.shape.Shape, int, int, java.util.concurrent.ForkJoinPool, java.util.Collection, java.util.Collection)
+   */
+  public static List<String> cover(Shape shape, int maxLevel, int maxCells) {
+    List<String> cells = new ArrayList<String>();
+    cover(shape, maxLevel, maxCells, null, cells, cells);
+    Collections.sort(cells);
+    return cells;
+  }
+
+  /**
+   * Computes the geohashes covering {@code shape}, walking the geohash tree top-down one level at
+   * a time using {@link Shape#relate(com.spatial4j.core.shape.Shape)} on each cell's rectangle.
+   * A cell the shape contains is added to {@code insideOut} without further subdivision (thus the
+   * cover is minimal). A cell on the shape's boundary is subdivided if it's shorter than {@code
+   * maxLevel} and the next level wouldn't exceed {@code maxCells} in total; otherwise it's added to
+   * {@code boundaryOut}. If even the first level exceeds {@code maxCells} then the result is the
+   * empty geohash, which is the whole world. The outputs may be the same collection.
+   *
+   * @param pool if non-null then the cells of each level are related in parallel with it.
+   */
+  public static void cover(Shape shape, int maxLevel, int maxCells, ForkJoinPool pool,
+                           Collection<String> insideOut, Collection<String> boundaryOut) {
+    if (maxLevel < 1 || maxLevel > MAX_PRECISION)
+      throw new IllegalArgumentException("maxLevel must be between 1 and " + MAX_PRECISION + ": " + maxLevel);
+    if (maxCells < 1)
+      throw new IllegalArgumentException("maxCells must be >= 1: " + maxCells);
+    if (shape.isEmpty())
+      return;
+    List<String> inside = new ArrayList<String>();
+    String[] boundary = {""};//level 0 is the world
+    for (int level = 1; level <= maxLevel; level++) {
+      String[] cells = new String[boundary.length * BASE_32.length];
+      int i = 0;
+      for (String parent : boundary) {
+        for (char c : BASE_32)
+          cells[i++] = parent + c;
+      }
+      SpatialRelation[] relations = new SpatialRelation[cells.length];
+      CoverRelateTask task = new CoverRelateTask(shape, cells, relations, 0, cells.length);
+      if (pool != null)
+        pool.invoke(task);
+      else
+        task.compute();
+
+      int numInside = 0, numBoundary = 0;
+      for (SpatialRelation relation : relations) {
+        if (relation == SpatialRelation.CONTAINS)
+          numInside++;
+        else if (relation != SpatialRelation.DISJOINT)
+          numBoundary++;
+      }
+      if (inside.size() + numInside + numBoundary > maxCells)
+        break;//keep the previous level's boundary cells
+      String[] nextBoundary = new String[numBoundary];
+      int b = 0;
+      for (int j = 0; j < cells.length; j++) {
+        if (relations[j] == SpatialRelation.CONTAINS)
+          inside.add(cells[j]);
+        else if (relations[j] != SpatialRelation.DISJOINT)
+          nextBoundary[b++] = cells[j];
+      }
+      boundary = nextBoundary;
+      if (boundary.length == 0)
+        break;
+    }
+    insideOut.addAll(inside);
+    boundaryOut.addAll(Arrays.asList(boundary));
+  }
+
+  /**
+   * Decomposes {@code shape} into ranges of geohash keys for a store sorted by the long form of
+   * geohashes of {@code precision}: a point's key is {@link #encodeLatLonAsLong(double, double, int)}
+   * and it matches when {@code start <= key < end} for a range.  The ranges are those of the
+   * {@link #cover(com.spatial4j.core.shape.Shape, int, int)} cells, coalesced when adjacent.  If
+   * there are more than {@code maxRanges} then the smallest gaps between them are closed too, so
+   * fewer range scans are traded for more false-positive keys; more {@code maxCells} goes the
+   * other way.
+   *
+   * @return the ranges as start, end pairs, sorted
+   */
+  public static long[] coverRanges(Shape shape, int precision, int maxCells, int maxRanges) {
+    checkLongPrecision(precision);
+    if (maxRanges < 1)
+      throw new IllegalArgumentException("maxRanges must be >= 1: " + maxRanges);
+    List<String> cells = cover(shape, precision, maxCells);
+    long[] ranges = new long[cells.size() * 2];
+    int numRanges = 0;
+    for (String cell : cells) {//sorted, thus so are the ranges
+      int shift = 5 * (precision - cell.length());
+      long start = cell.isEmpty() ? 0 : geohashToLong(cell) << shift;
+      long end = start + (1L << shift);
+      if (numRanges > 0 && ranges[numRanges * 2 - 1] == start) {
+        ranges[numRanges * 2 - 1] = end;//adjacent
+      } else {
+        ranges[numRanges * 2] = start;
+        ranges[numRanges * 2 + 1] = end;
+        numRanges++;
+      }
+    }
+    if (numRanges > maxRanges)
+      return closeSmallestGaps(ranges, numRanges, maxRanges);
+    return Arrays.copyOf(ranges, numRanges * 2);
+  }
+
+  /** Coalesces the ranges separated by the smallest gaps until there are {@code maxRanges}. */
+  private static long[] closeSmallestGaps(long[] ranges, int numRanges, int maxRanges) {
+    //the gaps to close are those below the (numRanges - maxRanges)'th smallest, then the first ties
+    long[] gaps = new long[numRanges - 1];//gap i is after range i
+    for (int i = 0; i < gaps.length; i++)
+      gaps[i] = ranges[i * 2 + 2] - ranges[i * 2 + 1];
+    long[] sortedGaps = gaps.clone();
+    Arrays.sort(sortedGaps);
+    int numToClose = numRanges - maxRanges;
+    long threshold = sortedGaps[numToClose - 1];
+    int numTies = 0;//number of gaps equal to the threshold to close
+    for (int i = numToClose - 1; i >= 0 && sortedGaps[i] == threshold; i--)
+      numTies++;
+    long[] result = new long[maxRanges * 2];
+    int r = 0;
+    result[0] = ranges[0];
+    for (int i = 0; i < numRanges; i++) {
+      boolean closeGapAfter = false;
+      if (i < gaps.length) {
+        if (gaps[i] < threshold) {
+          closeGapAfter = true;
+        } else if (gaps[i] == threshold && numTies > 0) {
+          closeGapAfter = true;
+          numTies--;
+        }
+      }
+      if (!closeGapAfter) {
+        result[r * 2 + 1] = ranges[i * 2 + 1];
+        if (++r < maxRanges)
+          result[r * 2] = ranges[i * 2 + 2];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Like {@link #coverRanges(com.spatial4j.core.shape.Shape, int, int, int)} but for a store sorted
+   * by geohash strings of at least {@code precision} characters.  Each range is a start, end pair
+   * of geohashes of {@code precision}; the end is null when it's the end of the world.
+   */
+  public static List<String[]> coverGeohashRanges(Shape shape, int precision, int maxCells, int maxRanges) {
+    long[] ranges = coverRanges(shape, precision, maxCells, maxRanges);
+    long endOfWorld = 1L << (5 * precision);
+    List<String[]> result = new ArrayList<String[]>(ranges.length / 2);
+    for (int i = 0; i < ranges.length; i += 2) {
+      String start = longToGeohash(ranges[i], precision);
+      String end = ranges[i + 1] == endOfWorld ? null : longToGeohash(ranges[i + 1], precision);
+      result.add(new String[]{start, end});
+    }
+    return result;
+  }
+
+  /** Relates a range of cells to the shape, forking when there are many. */
+  private static class CoverRelateTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MIN_FORK = 64;
+
+    final Shape shape;
+    final String[] cells;
+    final SpatialRelation[] out;//relation of the shape to the cell
+    final int from, to;
+
+    CoverRelateTask(Shape shape, String[] cells, SpatialRelation[] out, int from, int to) {
+      this.shape = shape;
+      this.cells = cells;
+      this.out = out;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > MIN_FORK && getPool() != null) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new CoverRelateTask(shape, cells, out, from, mid),
+            new CoverRelateTask(shape, cells, out, mid, to));
+        return;
+      }
+      SpatialContext ctx = shape.getContext();
+      Rectangle rect = ctx.makeRectangle(-180, 180, -90, 90);//reused for each cell
+      for (int i = from; i < to; i++)
+        out[i] = shape.relate(decodeBoundary(cells[i], ctx, rect));
+    }
+  }
+
   public static double[] lookupDegreesSizeForHashLen(int hashLen) {
     return new double[]{hashLenToLatHeight[hashLen], hashLenToLonWidth[hashLen]};
   }
@@ -24,11 +24,13 @@ import com.spatial4j.core.context.SpatialContextFactory;
 import com.spatial4j.core.exception.InvalidShapeException;
 import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.ShapeCollection;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -228,7 +230,8 @@ public class WKTReader implements ShapeReader {
   }
 
   /**
-   * Parses a MULTIPOINT shape from the raw string -- a collection of points.
+   * Parses a MULTIPOINT shape from the raw string -- a collection of points. Returns a
+   * {@link com.spatial4j.core.shape.impl.MultiPoint}.
    * 
    * <pre>
    *   '(' coordinate (',' coordinate )* ')'
@@ -240,18 +243,26 @@ public class WKTReader implements ShapeReader {
    */
   protected Shape parseMultiPointShape(State state) throws ParseException {
     if (state.nextIfEmptyAndSkipZM())
-      return ctx.makeCollection(Collections.EMPTY_LIST);
-    List<Point> shapes = new ArrayList<Point>();
+      return ctx.makeMultiPoint(new double[0], new double[0]);
+    double[] xs = new double[8];
+    double[] ys = new double[8];
+    int size = 0;
     state.nextExpect('(');
     do {
       boolean openParen = state.nextIf('(');
       Point coordinate = point(state);
       if (openParen)
         state.nextExpect(')');
-      shapes.add(coordinate);
+      if (size == xs.length) {
+        xs = Arrays.copyOf(xs, size * 2);
+        ys = Arrays.copyOf(ys, size * 2);
+      }
+      xs[size] = coordinate.getX();
+      ys[size] = coordinate.getY();
+      size++;
     } while (state.nextIf(','));
     state.nextExpect(')');
-    return ctx.makeCollection(shapes);
+    return ctx.makeMultiPoint(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size));
   }
 
   /**
@@ -306,13 +317,13 @@ public class WKTReader implements ShapeReader {
   protected Shape parseMultiLineStringShape(State state) throws ParseException {
     if (state.nextIfEmptyAndSkipZM())
       return ctx.makeCollection(Collections.EMPTY_LIST);
-    List<Shape> shapes = new ArrayList<Shape>();
+    ShapeCollection.Builder<Shape> builder = ctx.newCollectionBuilder();
     state.nextExpect('(');
     do {
-      shapes.add(parseLineStringShape(state));
+      builder.add(parseLineStringShape(state));
     } while (state.nextIf(','));
     state.nextExpect(')');
-    return ctx.makeCollection(shapes);
+    return builder.build();
   }
 
   /**
@@ -325,13 +336,13 @@ public class WKTReader implements ShapeReader {
   protected Shape parseGeometryCollectionShape(State state) throws ParseException {
     if (state.nextIfEmptyAndSkipZM())
       return ctx.makeCollection(Collections.EMPTY_LIST);
-    List<Shape> shapes = new ArrayList<Shape>();
+    ShapeCollection.Builder<Shape> builder = ctx.newCollectionBuilder();
     state.nextExpect('(');
     do {
-      shapes.add(shape(state));
+      builder.add(shape(state));
     } while (state.nextIf(','));
     state.nextExpect(')');
-    return ctx.makeCollection(shapes);
+    return builder.build();
   }
 
   /**
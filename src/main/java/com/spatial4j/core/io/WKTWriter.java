@@ -25,6 +25,7 @@ import com.spatial4j.core.shape.Shape;
 import com.spatial4j.core.shape.ShapeCollection;
 import com.spatial4j.core.shape.impl.BufferedLine;
 import com.spatial4j.core.shape.impl.BufferedLineString;
+import com.spatial4j.core.shape.impl.MultiPoint;
 
 import java.io.IOException;
 import java.io.Writer;
@@ -96,6 +97,19 @@ public class WKTWriter implements ShapeWriter {
       str.append(")");
       return str.toString();
     }
+    if (shape instanceof MultiPoint) {
+      MultiPoint multiPoint = (MultiPoint) shape;
+      if (multiPoint.isEmpty())
+        return "MULTIPOINT EMPTY";
+      StringBuilder buffer = new StringBuilder();
+      buffer.append("MULTIPOINT(");
+      for (int i = 0; i < multiPoint.size(); i++) {
+        if (i > 0)
+          buffer.append(", ");
+        buffer.append(nf.format(multiPoint.getX(i))).append(' ').append(nf.format(multiPoint.getY(i)));
+      }
+      return buffer.append(")").toString();
+    }
     if(shape instanceof ShapeCollection) {
       StringBuilder buffer = new StringBuilder();
       buffer.append("GEOMETRYCOLLECTION(");
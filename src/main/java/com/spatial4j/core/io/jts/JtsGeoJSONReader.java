@@ -132,6 +132,13 @@ public class JtsGeoJSONReader extends GeoJSONReader {
     return ctx.makeShape(geo);
   }
 
+  @Override
+  protected Shape readMultiPoint(JSONParser parser) throws IOException, ParseException {
+    assert (parser.lastEvent() == JSONParser.ARRAY_START);
+    GeometryFactory gf = ctx.getGeometryFactory();
+    return ctx.makeShape(createMultiPoint(gf, readCoordinates(parser)));
+  }
+
   @Override
   protected Shape readPolygon(JSONParser parser) throws IOException, ParseException {
     assert (parser.lastEvent() == JSONParser.ARRAY_START);
@@ -30,6 +30,7 @@ import com.spatial4j.core.io.WKTReader;
 import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.Rectangle;
 import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.ShapeCollection;
 import com.spatial4j.core.shape.jts.JtsGeometry;
 import com.vividsolutions.jts.algorithm.CGAlgorithms;
 import com.vividsolutions.jts.geom.Coordinate;
@@ -187,14 +188,14 @@ public class JtsWKTReader extends WKTReader {
     if (state.nextIfEmptyAndSkipZM())
       return ctx.makeCollection(Collections.EMPTY_LIST);
 
-    List<Shape> polygons = new ArrayList<Shape>();
+    ShapeCollection.Builder<Shape> polygons = ctx.newCollectionBuilder();
     state.nextExpect('(');
     do {
       polygons.add(parsePolygonShape(state));
     } while (state.nextIf(','));
     state.nextExpect(')');
 
-    return ctx.makeCollection(polygons);
+    return polygons.build();
   }
 
 
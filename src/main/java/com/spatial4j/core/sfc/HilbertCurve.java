@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.sfc;
+
+import com.spatial4j.core.context.SpatialContext;
+
+/**
+ * The Hilbert curve: consecutive keys are always adjacent grid cells, so it has better locality
+ * than {@link ZOrderCurve}, at the cost of a slower encoding.
+ *
+ * @see <a href="http://en.wikipedia.org/wiki/Hilbert_curve">Hilbert curve</a>
+ */
+public class HilbertCurve extends SpaceFillingCurve {
+
+  public HilbertCurve(SpatialContext ctx) {
+    this(ctx, MAX_BITS);
+  }
+
+  public HilbertCurve(SpatialContext ctx, int bits) {
+    super(ctx, bits);
+  }
+
+  @Override
+  public long encodeCell(long col, long row) {
+    long n = 1L << bits;
+    long key = 0;
+    for (long s = n >>> 1; s > 0; s >>>= 1) {
+      int rx = (col & s) != 0 ? 1 : 0;
+      int ry = (row & s) != 0 ? 1 : 0;
+      key += s * s * ((3 * rx) ^ ry);
+      //rotate the quadrant
+      if (ry == 0) {
+        if (rx == 1) {
+          col = n - 1 - col;
+          row = n - 1 - row;
+        }
+        long t = col;
+        col = row;
+        row = t;
+      }
+    }
+    return key;
+  }
+
+  @Override
+  public long decodeCell(long key) {
+    long n = 1L << bits;
+    long col = 0, row = 0;
+    for (long s = 1; s < n; s <<= 1) {
+      long rx = 1 & (key >>> 1);
+      long ry = 1 & (key ^ rx);
+      //rotate the quadrant
+      if (ry == 0) {
+        if (rx == 1) {
+          col = s - 1 - col;
+          row = s - 1 - row;
+        }
+        long t = col;
+        col = row;
+        row = t;
+      }
+      col += s * rx;
+      row += s * ry;
+      key >>>= 2;
+    }
+    return (col << 32) | row;
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.sfc;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.Rectangle;
+
+import java.util.Arrays;
+
+/**
+ * Maps points within {@link SpatialContext#getWorldBounds()} to non-negative long keys along a
+ * space-filling curve.  The world is divided into a grid of 2^bits columns by 2^bits rows, and each
+ * grid cell has a key from 0 to 4^bits - 1.  Each quadrant of the grid, recursively, is a
+ * contiguous range of keys, which is what {@link #ranges(com.spatial4j.core.shape.Rectangle, int, int)}
+ * builds on.
+ * <p/>
+ * Thread-safe & immutable.
+ */
+public abstract class SpaceFillingCurve {
+
+  /** The maximum bits per dimension; the keys thus use at most 62 bits and are non-negative. */
+  public static final int MAX_BITS = 31;
+
+  protected final SpatialContext ctx;
+  protected final int bits;
+  private final double minX, minY, cellWidth, cellHeight;
+  private final long maxCell;//the last column or row
+
+  /**
+   * @param bits The bits per dimension, from 1 to {@link #MAX_BITS}.
+   */
+  protected SpaceFillingCurve(SpatialContext ctx, int bits) {
+    if (bits < 1 || bits > MAX_BITS)
+      throw new IllegalArgumentException("bits must be between 1 and " + MAX_BITS + ": " + bits);
+    this.ctx = ctx;
+    this.bits = bits;
+    Rectangle bounds = ctx.getWorldBounds();
+    this.minX = bounds.getMinX();
+    this.minY = bounds.getMinY();
+    this.cellWidth = bounds.getWidth() / (1L << bits);
+    this.cellHeight = bounds.getHeight() / (1L << bits);
+    this.maxCell = (1L << bits) - 1;
+  }
+
+  public SpatialContext getContext() {
+    return ctx;
+  }
+
+  /** The bits per dimension. */
+  public int getBits() {
+    return bits;
+  }
+
+  /** One more than the largest key. */
+  public long getNumKeys() {
+    return 1L << (2 * bits);
+  }
+
+  /** The key of the grid cell at the given column and row, each from 0 to 2^bits - 1. */
+  public abstract long encodeCell(long col, long row);
+
+  /** The column and row of the key's grid cell, packed as {@code (col << 32) | row}. */
+  public abstract long decodeCell(long key);
+
+  public long encode(Point point) {
+    return encode(point.getX(), point.getY());
+  }
+
+  public long encode(double x, double y) {
+    return encodeCell(toCol(x), toRow(y));
+  }
+
+  /**
+   * Encodes each xs[i], ys[i] into {@code out}, which is created if null.
+   * @return {@code out}
+   */
+  public long[] encode(double[] xs, double[] ys, long[] out) {
+    if (xs.length != ys.length)
+      throw new IllegalArgumentException("xs and ys must be the same length: " + xs.length + " != " + ys.length);
+    if (out == null)
+      out = new long[xs.length];
+    else if (out.length < xs.length)
+      throw new IllegalArgumentException("out is shorter than xs: " + out.length);
+    for (int i = 0; i < xs.length; i++)
+      out[i] = encodeCell(toCol(xs[i]), toRow(ys[i]));
+    return out;
+  }
+
+  /** The grid cell of the key, as a rectangle.  {@code reuse} is reset if not null. */
+  public Rectangle decode(long key, Rectangle reuse) {
+    long colRow = decodeCell(key);
+    double cellMinX = minX + (colRow >>> 32) * cellWidth;
+    double cellMinY = minY + (colRow & 0xFFFFFFFFL) * cellHeight;
+    if (reuse == null)
+      return ctx.makeRectangle(cellMinX, cellMinX + cellWidth, cellMinY, cellMinY + cellHeight);
+    reuse.reset(cellMinX, cellMinX + cellWidth, cellMinY, cellMinY + cellHeight);
+    return reuse;
+  }
+
+  protected long toCol(double x) {
+    return clamp(Math.floor((x - minX) / cellWidth));
+  }
+
+  protected long toRow(double y) {
+    return clamp(Math.floor((y - minY) / cellHeight));
+  }
+
+  private long clamp(double cell) {
+    if (!(cell > 0))//includes NaN
+      return 0;
+    return cell >= maxCell ? maxCell : (long) cell;
+  }
+
+  /**
+   * Decomposes {@code query} into ranges of keys: every point in the query has a key within one
+   * of them.  The grid is walked top-down one level at a time: a quadrant within the query is a
+   * range, and a quadrant on its edge is subdivided unless that would exceed {@code maxCells}
+   * quadrants, in which case it's a range that includes some keys outside the query.  Adjacent
+   * ranges are coalesced.  If there are more than {@code maxRanges} then the smallest gaps between
+   * them are closed too, so fewer range scans are traded for more false positives.  In a geospatial
+   * context, a query crossing the dateline is handled.
+   *
+   * @return the ranges as start (inclusive), end (exclusive) pairs, sorted
+   */
+  public long[] ranges(Rectangle query, int maxCells, int maxRanges) {
+    if (maxCells < 1)
+      throw new IllegalArgumentException("maxCells must be >= 1: " + maxCells);
+    if (maxRanges < 1)
+      throw new IllegalArgumentException("maxRanges must be >= 1: " + maxRanges);
+    //the query as 1 or 2 boxes of grid cells: minCol, maxCol, minRow, maxRow
+    long minRow = toRow(query.getMinY()), maxRow = toRow(query.getMaxY());
+    long[] boxes;
+    if (query.getCrossesDateLine()) {
+      boxes = new long[]{toCol(query.getMinX()), maxCell, minRow, maxRow,
+          0, toCol(query.getMaxX()), minRow, maxRow};
+    } else {
+      boxes = new long[]{toCol(query.getMinX()), toCol(query.getMaxX()), minRow, maxRow};
+    }
+
+    LongList ranges = new LongList();
+    LongList nodes = new LongList();//col, row pairs of the current level's quadrants to relate
+    nodes.add(0);
+    nodes.add(0);
+    for (int level = 0; level <= bits; level++) {
+      int shift = bits - level;//a quadrant at this level is 2^shift cells wide
+      LongList edgeNodes = new LongList();
+      for (int i = 0; i < nodes.size; i += 2) {
+        long col = nodes.values[i], row = nodes.values[i + 1];
+        int relation = relate(boxes, col << shift, ((col + 1) << shift) - 1,
+            row << shift, ((row + 1) << shift) - 1);
+        if (relation == WITHIN) {
+          addRange(ranges, col, row, shift);
+        } else if (relation == EDGE) {
+          edgeNodes.add(col);
+          edgeNodes.add(row);
+        }
+      }
+      int numEdge = edgeNodes.size / 2;
+      if (numEdge == 0)
+        break;
+      if (shift == 0 || ranges.size / 2 + numEdge * 4 > maxCells) {
+        for (int i = 0; i < edgeNodes.size; i += 2)
+          addRange(ranges, edgeNodes.values[i], edgeNodes.values[i + 1], shift);
+        break;
+      }
+      nodes = new LongList();
+      for (int i = 0; i < edgeNodes.size; i += 2) {
+        long col = edgeNodes.values[i] << 1, row = edgeNodes.values[i + 1] << 1;
+        for (int child = 0; child < 4; child++) {
+          nodes.add(col + (child & 1));
+          nodes.add(row + (child >> 1));
+        }
+      }
+    }
+    return coalesce(ranges, maxRanges);
+  }
+
+  private static final int DISJOINT = 0, EDGE = 1, WITHIN = 2;
+
+  private static int relate(long[] boxes, long minCol, long maxCol, long minRow, long maxRow) {
+    int result = DISJOINT;
+    for (int i = 0; i < boxes.length; i += 4) {
+      if (minCol > boxes[i + 1] || maxCol < boxes[i] || minRow > boxes[i + 3] || maxRow < boxes[i + 2])
+        continue;
+      if (minCol >= boxes[i] && maxCol <= boxes[i + 1] && minRow >= boxes[i + 2] && maxRow <= boxes[i + 3])
+        return WITHIN;
+      result = EDGE;
+    }
+    return result;
+  }
+
+  /** Adds the contiguous range of keys of the quadrant. */
+  private void addRange(LongList ranges, long col, long row, int shift) {
+    long size = 1L << (2 * shift);
+    long start = encodeCell(col << shift, row << shift) & ~(size - 1);
+    ranges.add(start);
+    ranges.add(start + size);
+  }
+
+  /** Sorts the ranges, coalesces adjacent ones, then closes the smallest gaps to fit {@code maxRanges}. */
+  private static long[] coalesce(LongList rangeList, int maxRanges) {
+    int numRanges = rangeList.size / 2;
+    long[] starts = new long[numRanges];
+    for (int i = 0; i < numRanges; i++)
+      starts[i] = rangeList.values[i * 2];
+    long[] ends = new long[numRanges];
+    for (int i = 0; i < numRanges; i++)
+      ends[i] = rangeList.values[i * 2 + 1];
+    //ranges don't overlap, so sorting the starts and the ends independently keeps them paired
+    Arrays.sort(starts);
+    Arrays.sort(ends);
+    int n = 0;
+    for (int i = 0; i < numRanges; i++) {
+      if (n > 0 && ends[n - 1] == starts[i]) {
+        ends[n - 1] = ends[i];
+      } else {
+        starts[n] = starts[i];
+        ends[n] = ends[i];
+        n++;
+      }
+    }
+    if (n > maxRanges) {
+      //the smallest gaps to close are those below the (n - maxRanges)'th smallest, then ties
+      long[] gaps = new long[n - 1];
+      for (int i = 0; i < gaps.length; i++)
+        gaps[i] = starts[i + 1] - ends[i];
+      long[] sortedGaps = gaps.clone();
+      Arrays.sort(sortedGaps);
+      long threshold = sortedGaps[n - maxRanges - 1];
+      int numTies = 0;//number of gaps equal to the threshold to close
+      for (int i = n - maxRanges - 1; i >= 0 && sortedGaps[i] == threshold; i--)
+        numTies++;
+      int m = 0;
+      for (int i = 0; i < n; i++) {
+        boolean closeGapBefore = false;
+        if (i > 0) {
+          long gap = gaps[i - 1];
+          if (gap < threshold) {
+            closeGapBefore = true;
+          } else if (gap == threshold && numTies > 0) {
+            closeGapBefore = true;
+            numTies--;
+          }
+        }
+        if (closeGapBefore) {
+          ends[m - 1] = ends[i];
+        } else {
+          starts[m] = starts[i];
+          ends[m] = ends[i];
+          m++;
+        }
+      }
+      n = m;
+    }
+    long[] result = new long[n * 2];
+    for (int i = 0; i < n; i++) {
+      result[i * 2] = starts[i];
+      result[i * 2 + 1] = ends[i];
+    }
+    return result;
+  }
+
+  /** A growable array of longs. */
+  private static class LongList {
+    long[] values = new long[16];
+    int size;
+
+    void add(long value) {
+      if (size == values.length)
+        values = Arrays.copyOf(values, size * 2);
+      values[size++] = value;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(bits=" + bits + ")";
+  }
+}
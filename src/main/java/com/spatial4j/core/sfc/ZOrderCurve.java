@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.sfc;
+
+import com.spatial4j.core.context.SpatialContext;
+
+/**
+ * The Z-order (Morton) curve: a key interleaves the bits of the column (even bits) and the row
+ * (odd bits).  Besides {@link #ranges(com.spatial4j.core.shape.Rectangle, int, int)}, a scan over a
+ * query box can skip ahead with {@link #bigMin(long, long, long)}, and backwards with {@link
+ * #litMax(long, long, long)}.
+ *
+ * @see <a href="http://en.wikipedia.org/wiki/Z-order_curve">Z-order curve</a>
+ */
+public class ZOrderCurve extends SpaceFillingCurve {
+
+  private static final long X_MASK = 0x5555555555555555L;//even bits; the column
+  private static final long Y_MASK = 0xAAAAAAAAAAAAAAAAL;//odd bits; the row
+
+  public ZOrderCurve(SpatialContext ctx) {
+    this(ctx, MAX_BITS);
+  }
+
+  public ZOrderCurve(SpatialContext ctx, int bits) {
+    super(ctx, bits);
+  }
+
+  @Override
+  public long encodeCell(long col, long row) {
+    return spreadBits(col) | (spreadBits(row) << 1);
+  }
+
+  @Override
+  public long decodeCell(long key) {
+    return (compactBits(key) << 32) | compactBits(key >>> 1);
+  }
+
+  /**
+   * The smallest key at or after {@code key} that is within the box from {@code minKey} (the key of
+   * its min column and row) to {@code maxKey} (the key of its max column and row).  A scan over the
+   * box can jump here on reading a key outside of it.  Returns -1 if there's none.  This is the
+   * "BIGMIN" calculation of Tropf &amp; Herzog.
+   */
+  public long bigMin(long key, long minKey, long maxKey) {
+    long bigMin = -1;
+    for (int bit = 2 * bits - 1; bit >= 0; bit--) {
+      long mask = 1L << bit;
+      long dimMask = (bit & 1) == 0 ? X_MASK : Y_MASK;
+      int state = ((key & mask) != 0 ? 4 : 0) | ((minKey & mask) != 0 ? 2 : 0) | ((maxKey & mask) != 0 ? 1 : 0);
+      switch (state) {
+        case 0b000: case 0b111:
+          break;
+        case 0b001:
+          bigMin = load10(minKey, bit, dimMask);
+          maxKey = load01(maxKey, bit, dimMask);
+          break;
+        case 0b011:
+          return minKey;
+        case 0b100:
+          return bigMin;
+        case 0b101:
+          minKey = load10(minKey, bit, dimMask);
+          break;
+        default://0b010, 0b110
+          throw new IllegalArgumentException("minKey must be <= maxKey in each dimension");
+      }
+    }
+    return key;//key is within the box
+  }
+
+  /**
+   * The largest key at or before {@code key} that is within the box from {@code minKey} to {@code
+   * maxKey}; the counterpart of {@link #bigMin(long, long, long)}.  Returns -1 if there's none.
+   */
+  public long litMax(long key, long minKey, long maxKey) {
+    long litMax = -1;
+    for (int bit = 2 * bits - 1; bit >= 0; bit--) {
+      long mask = 1L << bit;
+      long dimMask = (bit & 1) == 0 ? X_MASK : Y_MASK;
+      int state = ((key & mask) != 0 ? 4 : 0) | ((minKey & mask) != 0 ? 2 : 0) | ((maxKey & mask) != 0 ? 1 : 0);
+      switch (state) {
+        case 0b000: case 0b111:
+          break;
+        case 0b001:
+          maxKey = load01(maxKey, bit, dimMask);
+          break;
+        case 0b011:
+          return litMax;
+        case 0b100:
+          return maxKey;
+        case 0b101:
+          litMax = load01(maxKey, bit, dimMask);
+          minKey = load10(minKey, bit, dimMask);
+          break;
+        default://0b010, 0b110
+          throw new IllegalArgumentException("minKey must be <= maxKey in each dimension");
+      }
+    }
+    return key;//key is within the box
+  }
+
+  /** Sets the bit, and clears the lower bits of the same dimension. */
+  private static long load10(long key, int bit, long dimMask) {
+    long lower = dimMask & ((1L << bit) - 1);
+    return (key | (1L << bit)) & ~lower;
+  }
+
+  /** Clears the bit, and sets the lower bits of the same dimension. */
+  private static long load01(long key, int bit, long dimMask) {
+    long lower = dimMask & ((1L << bit) - 1);
+    return (key & ~(1L << bit)) | lower;
+  }
+
+  /** Spreads the low 32 bits into the even bits of the result. */
+  static long spreadBits(long v) {
+    v &= 0xFFFFFFFFL;
+    v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+    v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+    v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+    v = (v | (v << 2)) & 0x3333333333333333L;
+    v = (v | (v << 1)) & 0x5555555555555555L;
+    return v;
+  }
+
+  /** The inverse of {@link #spreadBits(long)}; the odd bits are ignored. */
+  static long compactBits(long v) {
+    v &= 0x5555555555555555L;
+    v = (v | (v >>> 1)) & 0x3333333333333333L;
+    v = (v | (v >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+    v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+    v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+    v = (v | (v >>> 16)) & 0xFFFFFFFFL;
+    return v;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape;
+
+/**
+ * A query shape prepared to be related to many candidate shapes, such as when refining the
+ * candidates found by an index. Query-side state (e.g. the bounding box) is computed once, and
+ * candidates whose bounding box is disjoint from the query's are rejected without calling
+ * {@link Shape#relate(Shape)}. Get one from {@link
+ * com.spatial4j.core.context.SpatialContext#prepareQuery(Shape)} so that the context can return a
+ * more specialized implementation.
+ * <p/>
+ * Not necessarily thread-safe; use one per thread.
+ */
+public class PreparedQuery {
+
+  protected final Shape query;
+  protected final Rectangle bbox;
+  protected final boolean empty;
+
+  public PreparedQuery(Shape query) {
+    this.query = query;
+    this.bbox = query.getBoundingBox();
+    this.empty = query.isEmpty();
+  }
+
+  public Shape getQuery() {
+    return query;
+  }
+
+  /** Equivalent to {@code getQuery().relate(candidate)}. */
+  public SpatialRelation relate(Shape candidate) {
+    if (!empty && !candidate.isEmpty() && !bboxIntersects(candidate))
+      return SpatialRelation.DISJOINT;
+    return query.relate(candidate);
+  }
+
+  /**
+   * Relates each candidate, like {@link #relate(Shape)}.
+   * @param out The relation of {@code candidates[i]} is stored at {@code out[i]}.
+   */
+  public void relate(Shape[] candidates, SpatialRelation[] out) {
+    if (out.length < candidates.length)
+      throw new IllegalArgumentException("out.length " + out.length + " < candidates.length " + candidates.length);
+    for (int i = 0; i < candidates.length; i++) {
+      out[i] = relate(candidates[i]);
+    }
+  }
+
+  /** Whether the query's bounding box intersects the candidate (or its bounding box). */
+  protected boolean bboxIntersects(Shape candidate) {
+    if (candidate instanceof Point)//avoids bbox allocation
+      return bbox.relate((Point) candidate).intersects();
+    return bbox.relate(candidate.getBoundingBox()).intersects();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(" + query + ")";
+  }
+}
@@ -28,6 +28,12 @@ import com.spatial4j.core.context.SpatialContext;
  * Shapes are generally immutable and thread-safe. If a particular shape has a
  * <code>reset(...)</code> method then its use means the shape is actually
  * mutable. Mutating shape state is considered expert and should be done with care.
+ * <p/>
+ * The reset methods of {@link Point}, {@link Rectangle}, {@link Circle} and
+ * {@link com.spatial4j.core.shape.impl.BufferedLine} don't allocate objects, nor
+ * (after first use) does relating them to a Point or Rectangle, so an application
+ * can relate one re-used instance against many shapes in a loop without
+ * generating garbage.
  */
 public interface Shape {
 
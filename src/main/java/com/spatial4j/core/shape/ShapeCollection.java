@@ -18,15 +18,23 @@
 package com.spatial4j.core.shape;
 
 import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.index.SpatialJoin;
+import com.spatial4j.core.index.StrTree;
 import com.spatial4j.core.shape.impl.Range;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.spatial4j.core.shape.SpatialRelation.CONTAINS;
+import static com.spatial4j.core.shape.SpatialRelation.DISJOINT;
 import static com.spatial4j.core.shape.SpatialRelation.INTERSECTS;
 
 /**
@@ -44,15 +52,32 @@ import static com.spatial4j.core.shape.SpatialRelation.INTERSECTS;
  * intersects when the best answer is actually contains or within. If any shape
  * intersects the provided shape then that is the answer.
  * <p/>
- * This implementation is not optimized for a large number of shapes; relate is
- * O(N).  A more sophisticated implementation might do an R-Tree based on
- * bbox'es, for example.
+ * When there are at least {@link #getIndexThreshold()} shapes, relate() builds
+ * (on first use) an R-Tree on the shapes' bounding boxes, a {@link StrTree}, so
+ * that it only visits the shapes whose bounding box intersects the other shape.
+ * Otherwise relate is O(N).
+ * <p/>
+ * Given a {@link ForkJoinPool}, the operations over all the shapes -- relate(), {@link
+ * #getBuffered(double, com.spatial4j.core.context.SpatialContext)}, {@link
+ * #getArea(com.spatial4j.core.context.SpatialContext)}, {@link #hasArea()}, and computing the
+ * bounding box -- are split across it when there are at least {@link #MIN_PARALLEL_SIZE} shapes.
+ * relate() and hasArea() stop the other threads cooperatively once the answer is known.
  */
 public class ShapeCollection<S extends Shape> extends AbstractList<S> implements Shape {
 
+  /** The default minimum number of shapes for relate() to use an index. */
+  public static final int DEFAULT_INDEX_THRESHOLD = 64;
+
+  /** The minimum number of shapes for an operation to use the pool, if there is one. */
+  public static final int MIN_PARALLEL_SIZE = 128;
+
   protected final SpatialContext ctx;
   protected final List<S> shapes;
   protected final Rectangle bbox;
+  protected final int indexThreshold;
+  protected final ForkJoinPool pool;//optional
+
+  private volatile StrTree<S> index;//lazy initialized; see getIndex()
 
   /**
    * WARNING: {@code shapes} is copied by reference.
@@ -60,32 +85,165 @@ public class ShapeCollection<S extends Shape> extends AbstractList<S> implements
    * @param ctx
    */
   public ShapeCollection(List<S> shapes, SpatialContext ctx) {
+    this(shapes, ctx, DEFAULT_INDEX_THRESHOLD);
+  }
+
+  /**
+   * WARNING: {@code shapes} is copied by reference.
+   * @param shapes Copied by reference! (make a defensive copy if caller modifies)
+   * @param ctx
+   * @param indexThreshold See {@link #getIndexThreshold()}. {@link Integer#MAX_VALUE} means never.
+   */
+  public ShapeCollection(List<S> shapes, SpatialContext ctx, int indexThreshold) {
+    this(shapes, ctx, indexThreshold, null);
+  }
+
+  /**
+   * WARNING: {@code shapes} is copied by reference.
+   * @param shapes Copied by reference! (make a defensive copy if caller modifies)
+   * @param ctx
+   * @param indexThreshold See {@link #getIndexThreshold()}. {@link Integer#MAX_VALUE} means never.
+   * @param pool Optional; see {@link #getPool()}.
+   */
+  public ShapeCollection(List<S> shapes, SpatialContext ctx, int indexThreshold, ForkJoinPool pool) {
+    this(shapes, ctx, indexThreshold, pool, null);
+  }
+
+  /** @param bbox The bounding box of the shapes, e.g. from a {@link Builder}; if null then it's computed. */
+  protected ShapeCollection(List<S> shapes, SpatialContext ctx, int indexThreshold, ForkJoinPool pool,
+                            Rectangle bbox) {
     if (!(shapes instanceof RandomAccess))
       throw new IllegalArgumentException("Shapes arg must implement RandomAccess: "+shapes.getClass());
     this.shapes = shapes;
     this.ctx = ctx;
-    this.bbox = computeBoundingBox(shapes, ctx);
+    this.indexThreshold = indexThreshold;
+    this.pool = pool;
+    this.bbox = bbox != null ? bbox : computeBoundingBox(shapes, ctx);
   }
 
   protected Rectangle computeBoundingBox(Collection<? extends Shape> shapes, SpatialContext ctx) {
     if (shapes.isEmpty())
       return ctx.makeRectangle(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
-    Range xRange = null;
-    double minY = Double.POSITIVE_INFINITY;
-    double maxY = Double.NEGATIVE_INFINITY;
+    if (isParallel(shapes.size()) && shapes instanceof List) {
+      final List<? extends Shape> list = (List<? extends Shape>) shapes;
+      final boolean geo = ctx.isGeo();
+      return invoke(new Op<BBoxAccumulator>() {
+        @Override
+        BBoxAccumulator leaf(int from, int to) {
+          BBoxAccumulator acc = new BBoxAccumulator(geo);
+          for (int i = from; i < to; i++) {
+            acc.add(list.get(i).getBoundingBox());
+          }
+          return acc;
+        }
+
+        @Override
+        BBoxAccumulator combine(BBoxAccumulator a, BBoxAccumulator b) {
+          a.add(b);
+          return a;
+        }
+      }, list.size()).toRectangle(ctx);
+    }
+    BBoxAccumulator acc = new BBoxAccumulator(ctx.isGeo());
     for (Shape geom : shapes) {
-      Rectangle r = geom.getBoundingBox();
+      acc.add(geom.getBoundingBox());
+    }
+    return acc.toRectangle(ctx);
+  }
+
+  /**
+   * Builds a ShapeCollection one shape at a time, accumulating the bounding box as the shapes
+   * are added so that it isn't computed with another pass over them. Once {@link #build()} is
+   * called the builder is empty again and can be reused.
+   */
+  public static class Builder<S extends Shape> {
+    protected final SpatialContext ctx;
+    private List<S> shapes;
+    private BBoxAccumulator bbox;
+
+    public Builder(SpatialContext ctx) {
+      this(ctx, 10);
+    }
 
-      Range xRange2 = Range.xRange(r, ctx);
-      if (xRange == null) {
-        xRange = xRange2;
+    /** @param expectedSize The initial capacity of the list of shapes. */
+    public Builder(SpatialContext ctx, int expectedSize) {
+      this.ctx = ctx;
+      this.shapes = new ArrayList<S>(expectedSize);
+      this.bbox = new BBoxAccumulator(ctx.isGeo());
+    }
+
+    public Builder<S> add(S shape) {
+      shapes.add(shape);
+      bbox.add(shape.getBoundingBox());
+      return this;
+    }
+
+    public int size() {
+      return shapes.size();
+    }
+
+    public boolean isEmpty() {
+      return shapes.isEmpty();
+    }
+
+    public ShapeCollection<S> build() {
+      ShapeCollection<S> coll = newCollection(shapes, bbox.toRectangle(ctx));
+      shapes = new ArrayList<S>();
+      bbox = new BBoxAccumulator(ctx.isGeo());
+      return coll;
+    }
+
+    /** Called by {@link #build()}; override to build a subclass of ShapeCollection. */
+    protected ShapeCollection<S> newCollection(List<S> shapes, Rectangle bbox) {
+      return new ShapeCollection<S>(shapes, ctx, DEFAULT_INDEX_THRESHOLD, null, bbox);
+    }
+  }
+
+  /**
+   * Accumulates the bounding box of the rectangles given to it without allocating anything. In a
+   * geo context the longitude range is expanded with {@link
+   * com.spatial4j.core.shape.impl.Range.LongitudeRange#expand(double, double, double, double, double[])}.
+   */
+  private static final class BBoxAccumulator {
+    private final boolean geo;
+    private boolean empty = true;
+    private final double[] xRange = new double[2];//min, max
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    BBoxAccumulator(boolean geo) {
+      this.geo = geo;
+    }
+
+    void add(Rectangle r) {
+      add(r.getMinX(), r.getMaxX(), r.getMinY(), r.getMaxY());
+    }
+
+    void add(BBoxAccumulator other) {
+      if (!other.empty)
+        add(other.xRange[0], other.xRange[1], other.minY, other.maxY);
+    }
+
+    void add(double rMinX, double rMaxX, double rMinY, double rMaxY) {
+      minY = Math.min(minY, rMinY);
+      maxY = Math.max(maxY, rMaxY);
+      if (empty) {
+        xRange[0] = rMinX;
+        xRange[1] = rMaxX;
+        empty = false;
+      } else if (!geo) {
+        xRange[0] = Math.min(xRange[0], rMinX);
+        xRange[1] = Math.max(xRange[1], rMaxX);
       } else {
-        xRange = xRange.expandTo(xRange2);
+        Range.LongitudeRange.expand(xRange[0], xRange[1], rMinX, rMaxX, xRange);
       }
-      minY = Math.min(minY, r.getMinY());
-      maxY = Math.max(maxY, r.getMaxY());
     }
-    return ctx.makeRectangle(xRange.getMin(), xRange.getMax(), minY, maxY);
+
+    Rectangle toRectangle(SpatialContext ctx) {
+      if (empty)
+        return ctx.makeRectangle(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+      return ctx.makeRectangle(xRange[0], xRange[1], minY, maxY);
+    }
   }
 
   public List<S> getShapes() {
@@ -114,6 +272,20 @@ public class ShapeCollection<S extends Shape> extends AbstractList<S> implements
 
   @Override
   public boolean hasArea() {
+    if (isParallel(shapes.size())) {
+      final AtomicBoolean found = new AtomicBoolean();
+      invoke(new Op<Void>() {
+        @Override
+        Void leaf(int from, int to) {
+          for (int i = from; i < to && !found.get(); i++) {
+            if (shapes.get(i).hasArea())
+              found.set(true);
+          }
+          return null;
+        }
+      }, shapes.size());
+      return found.get();
+    }
     for (Shape geom : shapes) {
       if( geom.hasArea() ) {
         return true;
@@ -123,7 +295,20 @@ public class ShapeCollection<S extends Shape> extends AbstractList<S> implements
   }
 
   @Override
-  public ShapeCollection getBuffered(double distance, SpatialContext ctx) {
+  public ShapeCollection getBuffered(final double distance, final SpatialContext ctx) {
+    if (isParallel(shapes.size())) {
+      final Shape[] buffered = new Shape[shapes.size()];
+      invoke(new Op<Void>() {
+        @Override
+        Void leaf(int from, int to) {
+          for (int i = from; i < to; i++) {
+            buffered[i] = shapes.get(i).getBuffered(distance, ctx);
+          }
+          return null;
+        }
+      }, buffered.length);
+      return ctx.makeCollection(Arrays.asList(buffered));
+    }
     List<Shape> bufColl = new ArrayList<Shape>(size());
     for (Shape shape : shapes) {
       bufColl.add(shape.getBuffered(distance, ctx));
@@ -139,6 +324,35 @@ public class ShapeCollection<S extends Shape> extends AbstractList<S> implements
 
     final boolean containsWillShortCircuit = (other instanceof Point) ||
         relateContainsShortCircuits();
+    final StrTree<S> index = getIndex();
+    if (isParallel(shapes.size())) {
+      List<? extends Shape> candidates = shapes;
+      if (index != null) {
+        final List<S> visited = new ArrayList<S>();
+        index.visitCandidates(other, new StrTree.Visitor<S>() {
+          @Override
+          public boolean visit(int i, S shape) {
+            return visited.add(shape);
+          }
+        });
+        candidates = visited;
+      }
+      SpatialRelation sect = relateInParallel(candidates, other, containsWillShortCircuit);
+      //the shapes not visited have a disjoint bbox, thus are DISJOINT
+      if (candidates.size() < shapes.size())
+        return sect == null ? DISJOINT : sect.combine(DISJOINT);
+      return sect;
+    }
+    if (index != null) {
+      IndexedRelateVisitor visitor = new IndexedRelateVisitor(other, containsWillShortCircuit);
+      if (!index.visitCandidates(other, visitor))
+        return visitor.sect;//short-circuited
+      //the shapes not visited have a disjoint bbox, thus are DISJOINT
+      if (visitor.numVisited < shapes.size())
+        return visitor.sect == null ? DISJOINT : visitor.sect.combine(DISJOINT);
+      return visitor.sect;
+    }
+
     SpatialRelation sect = null;
     for (Shape shape : shapes) {
       SpatialRelation nextSect = shape.relate(other);
@@ -158,6 +372,146 @@ public class ShapeCollection<S extends Shape> extends AbstractList<S> implements
     return sect;
   }
 
+  /**
+   * Relates each of the candidates to {@code other}, combining the results like the loop in
+   * {@link #relate(Shape)}. The first part to find an answer that short-circuits stops the others.
+   * Returns null if there are no candidates.
+   */
+  private SpatialRelation relateInParallel(final List<? extends Shape> candidates, final Shape other,
+                                           final boolean containsWillShortCircuit) {
+    final AtomicReference<SpatialRelation> shortCircuit = new AtomicReference<SpatialRelation>();
+    SpatialRelation sect = invoke(new Op<SpatialRelation>() {
+      @Override
+      SpatialRelation leaf(int from, int to) {
+        SpatialRelation sect = null;
+        for (int i = from; i < to && shortCircuit.get() == null; i++) {
+          SpatialRelation nextSect = candidates.get(i).relate(other);
+          sect = (sect == null) ? nextSect : sect.combine(nextSect);
+          if (sect == INTERSECTS || (sect == CONTAINS && containsWillShortCircuit)) {
+            shortCircuit.compareAndSet(null, sect);
+            break;
+          }
+        }
+        return sect;
+      }
+
+      @Override
+      SpatialRelation combine(SpatialRelation a, SpatialRelation b) {
+        return a == null ? b : (b == null ? a : a.combine(b));
+      }
+    }, candidates.size());
+    SpatialRelation stoppedAt = shortCircuit.get();
+    return stoppedAt != null ? stoppedAt : sect;
+  }
+
+  /** Combines the relations of the visited shapes, like the loop in {@link #relate(Shape)}. */
+  private class IndexedRelateVisitor implements StrTree.Visitor<S> {
+    final Shape other;
+    final boolean containsWillShortCircuit;
+    SpatialRelation sect = null;
+    int numVisited = 0;
+
+    IndexedRelateVisitor(Shape other, boolean containsWillShortCircuit) {
+      this.other = other;
+      this.containsWillShortCircuit = containsWillShortCircuit;
+    }
+
+    @Override
+    public boolean visit(int index, S shape) {
+      numVisited++;
+      SpatialRelation nextSect = shape.relate(other);
+      sect = (sect == null) ? nextSect : sect.combine(nextSect);
+      return sect != INTERSECTS && !(sect == CONTAINS && containsWillShortCircuit);
+    }
+  }
+
+  /**
+   * The pool that operations over at least {@link #MIN_PARALLEL_SIZE} shapes are split across, or
+   * null if they run in the calling thread.
+   */
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  private boolean isParallel(int numShapes) {
+    return pool != null && numShapes >= MIN_PARALLEL_SIZE;
+  }
+
+  /** Runs {@code op} over [0, size) split into ranges across the pool. */
+  private <R> R invoke(Op<R> op, int size) {
+    return invoke(pool, op, size);
+  }
+
+  private static <R> R invoke(ForkJoinPool pool, Op<R> op, int size) {
+    int leafSize = Math.max(16, size / (pool.getParallelism() * 8));
+    return pool.invoke(new OpTask<R>(op, 0, size, leafSize));
+  }
+
+  /** An operation over a range of shape indexes; see {@link #invoke(Op, int)}. */
+  private abstract static class Op<R> {
+    abstract R leaf(int from, int to);
+
+    R combine(R a, R b) {
+      return null;
+    }
+  }
+
+  private static class OpTask<R> extends RecursiveTask<R> {
+    private static final long serialVersionUID = 1L;
+
+    final Op<R> op;
+    final int from, to, leafSize;
+
+    OpTask(Op<R> op, int from, int to, int leafSize) {
+      this.op = op;
+      this.from = from;
+      this.to = to;
+      this.leafSize = leafSize;
+    }
+
+    @Override
+    protected R compute() {
+      if (to - from <= leafSize)
+        return op.leaf(from, to);
+      int mid = (from + to) >>> 1;
+      OpTask<R> right = new OpTask<R>(op, mid, to, leafSize);
+      right.fork();
+      R leftResult = new OpTask<R>(op, from, mid, leafSize).compute();
+      return op.combine(leftResult, right.join());
+    }
+  }
+
+  /**
+   * The minimum number of shapes at which relate() uses an index on the shapes'
+   * bounding boxes.
+   */
+  public int getIndexThreshold() {
+    return indexThreshold;
+  }
+
+  /**
+   * Returns the index on the shapes' bounding boxes, building it if needed, or
+   * null if there are fewer shapes than {@link #getIndexThreshold()}. It's
+   * built lazily because it takes time and memory that a collection that is never
+   * relate()'ed doesn't need. Thread-safe; concurrent callers might each build
+   * one but only one is retained.
+   */
+  protected StrTree<S> getIndex() {
+    if (shapes.size() < indexThreshold)
+      return null;
+    StrTree<S> idx = index;
+    if (idx == null) {
+      idx = makeIndex();
+      index = idx;
+    }
+    return idx;
+  }
+
+  /** Builds the index returned by {@link #getIndex()}. */
+  protected StrTree<S> makeIndex() {
+    return new StrTree<S>(shapes, ctx);
+  }
+
   /**
    * Called by relate() to determine whether to return early if it finds
    * CONTAINS, instead of checking the remaining shapes. It will do so without
@@ -180,27 +534,48 @@ public class ShapeCollection<S extends Shape> extends AbstractList<S> implements
   /**
    * Computes whether the shapes are mutually disjoint. This is a utility method
    * offered for use by a subclass implementing {@link #relateContainsShortCircuits()}.
-   * <b>Beware: this is an O(N^2) algorithm.</b>.  Consequently, consider safely
-   * assuming non-disjoint if shapes.size() > 10 or something.  And if all shapes
-   * are a Point then the result of this method doesn't ultimately matter.
+   * It's {@link SpatialJoin#anyIntersect(List, SpatialContext, ForkJoinPool)}, so only the
+   * pairs of shapes whose bounding boxes intersect are relate()'ed; that's O(N log N) plus
+   * the number of such pairs. Empty shapes are disjoint from everything. If all shapes are
+   * a Point then the result of this method doesn't ultimately matter.
    */
   protected static boolean computeMutualDisjoint(List<? extends Shape> shapes) {
-    //WARNING: this is an O(n^2) algorithm.
-    //loop through each shape and see if it intersects any shape before it
-    for (int i = 1; i < shapes.size(); i++) {
-      Shape shapeI = shapes.get(i);
-      for (int j = 0; j < i; j++) {
-        Shape shapeJ = shapes.get(j);
-        if (shapeJ.relate(shapeI).intersects())
-          return false;
-      }
-    }
-    return true;
+    return computeMutualDisjoint(shapes, null);
+  }
+
+  /**
+   * Like {@link #computeMutualDisjoint(java.util.List)}, but if {@code pool} isn't null
+   * then the sweep is split across it, stopping early once any pair intersects.
+   */
+  protected static boolean computeMutualDisjoint(List<? extends Shape> shapes, ForkJoinPool pool) {
+    if (shapes.size() < 2)
+      return true;
+    if (shapes.size() < MIN_PARALLEL_SIZE)
+      pool = null;
+    return !SpatialJoin.anyIntersect(shapes, shapes.get(0).getContext(), pool);
   }
 
   @Override
-  public double getArea(SpatialContext ctx) {
+  public double getArea(final SpatialContext ctx) {
     double MAX_AREA = bbox.getArea(ctx);
+    if (isParallel(shapes.size())) {
+      double sum = invoke(new Op<Double>() {
+        @Override
+        Double leaf(int from, int to) {
+          double sum = 0;
+          for (int i = from; i < to; i++) {
+            sum += shapes.get(i).getArea(ctx);
+          }
+          return sum;
+        }
+
+        @Override
+        Double combine(Double a, Double b) {
+          return a + b;
+        }
+      }, shapes.size());
+      return Math.min(sum, MAX_AREA);
+    }
     double sum = 0;
     for (Shape geom : shapes) {
       sum += geom.getArea(ctx);
@@ -232,7 +607,8 @@ public class ShapeCollection<S extends Shape> extends AbstractList<S> implements
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
+    //any ShapeCollection (e.g. a MultiPoint) with equal shapes is equal
+    if (!(o instanceof ShapeCollection)) return false;
 
     ShapeCollection that = (ShapeCollection) o;
 
@@ -39,7 +39,7 @@ import static com.spatial4j.core.shape.SpatialRelation.WITHIN;
 public class BufferedLine extends BaseShape<SpatialContext> {
 
   private final Point pA, pB;
-  private final double buf;
+  private double buf;
   private final Rectangle bbox;
   /**
    * the primary line; passes through pA & pB
@@ -62,6 +62,28 @@ public class BufferedLine extends BaseShape<SpatialContext> {
    */
   public BufferedLine(Point pA, Point pB, double buf, SpatialContext ctx) {
     super(ctx);
+    this.pA = pA;
+    this.pB = pB;
+    this.linePrimary = new InfBufLine(0, pA, 0);
+    this.linePerp = new InfBufLine(0, pA, 0);
+    this.bbox = ctx.makeRectangle(0, 0, 0, 0);
+    init(buf);
+  }
+
+  /**
+   * Expert: Resets the state of this shape given the arguments. This is a
+   * performance feature to avoid excessive Shape object allocation. Mutable
+   * shapes is error-prone so use with care; note that the points given to the
+   * constructor are reset too.
+   */
+  public void reset(double ax, double ay, double bx, double by, double buf) {
+    assert ! isEmpty();
+    pA.reset(ax, ay);
+    pB.reset(bx, by);
+    init(buf);
+  }
+
+  private void init(double buf) {
     assert buf >= 0;//TODO support buf=0 via another class ?
 
     /**
@@ -71,25 +93,23 @@ public class BufferedLine extends BaseShape<SpatialContext> {
     final boolean bufExtend = true;//TODO support false and make this a
     // parameter
 
-    this.pA = pA;
-    this.pB = pB;
     this.buf = buf;
 
     double deltaY = pB.getY() - pA.getY();
     double deltaX = pB.getX() - pA.getX();
 
-    PointImpl center = new PointImpl(pA.getX() + deltaX / 2,
-        pA.getY() + deltaY / 2, null);
+    double centerX = pA.getX() + deltaX / 2;
+    double centerY = pA.getY() + deltaY / 2;
 
     double perpExtent = bufExtend ? buf : 0;
 
     if (deltaX == 0 && deltaY == 0) {
-      linePrimary = new InfBufLine(0, center, buf);
-      linePerp = new InfBufLine(Double.POSITIVE_INFINITY, center, buf);
+      linePrimary.reset(0, centerX, centerY, buf);
+      linePerp.reset(Double.POSITIVE_INFINITY, centerX, centerY, buf);
     } else {
-      linePrimary = new InfBufLine(deltaY / deltaX, center, buf);
+      linePrimary.reset(deltaY / deltaX, centerX, centerY, buf);
       double length = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
-      linePerp = new InfBufLine(-deltaX / deltaY, center,
+      linePerp.reset(-deltaX / deltaY, centerX, centerY,
           length / 2 + perpExtent);
     }
 
@@ -138,7 +158,7 @@ public class BufferedLine extends BaseShape<SpatialContext> {
     }
     Rectangle bounds = ctx.getWorldBounds();
 
-    bbox = ctx.makeRectangle(
+    bbox.reset(
         Math.max(bounds.getMinX(), minX),
         Math.min(bounds.getMaxX(), maxX),
         Math.max(bounds.getMinY(), minY),
@@ -189,12 +209,15 @@ public class BufferedLine extends BaseShape<SpatialContext> {
       return bboxR;
     //Either CONTAINS, INTERSECTS, or DISJOINT
 
-    Point scratch = new PointImpl(0, 0, null);
-    Point prC = r.getCenter();
-    SpatialRelation result = linePrimary.relate(r, prC, scratch);
+    //r's center; like r.getCenter() but without allocating a Point
+    double prCX = r.getMinX() + r.getWidth() / 2;
+    if (r.getCrossesDateLine())
+      prCX = DistanceUtils.normLonDEG(prCX);
+    double prCY = r.getMinY() + r.getHeight() / 2;
+    SpatialRelation result = linePrimary.relate(r, prCX, prCY);
     if (result == DISJOINT)
       return DISJOINT;
-    SpatialRelation resultOpp = linePerp.relate(r, prC, scratch);
+    SpatialRelation resultOpp = linePerp.relate(r, prCX, prCY);
     if (resultOpp == DISJOINT)
       return DISJOINT;
     if (result == resultOpp)//either CONTAINS or INTERSECTS
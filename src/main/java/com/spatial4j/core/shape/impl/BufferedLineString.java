@@ -18,6 +18,7 @@
 package com.spatial4j.core.shape.impl;
 
 import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.index.StrTree;
 import com.spatial4j.core.shape.BaseShape;
 import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.Rectangle;
@@ -34,6 +35,10 @@ import java.util.List;
  * A BufferedLineString is a collection of {@link com.spatial4j.core.shape.impl.BufferedLine} shapes,
  * resulting in what some call a "Track" or "Polyline" (ESRI terminology).
  * The buffer can be 0.  Note that BufferedLine isn't yet aware of geodesics (e.g. the dateline).
+ * <p/>
+ * Long line strings index their segments' bounding boxes so that relate() only tests the segments
+ * near the other shape.  Since consecutive segments are contiguous, the index groups them in
+ * sequence order.
  */
 public class BufferedLineString extends BaseShape<SpatialContext> {
 
@@ -67,7 +72,7 @@ public class BufferedLineString extends BaseShape<SpatialContext> {
     this.buf = buf;
 
     if (points.isEmpty()) {
-      this.segments = ctx.makeCollection(Collections.<BufferedLine>emptyList());
+      this.segments = new SegmentCollection(Collections.<BufferedLine>emptyList(), ctx);
     } else {
       List<BufferedLine> segments = new ArrayList<BufferedLine>(points.size() - 1);
 
@@ -86,7 +91,19 @@ public class BufferedLineString extends BaseShape<SpatialContext> {
       if (segments.isEmpty()) {//TODO throw exception instead?
         segments.add(new BufferedLine(prevPoint, prevPoint, buf, ctx));
       }
-      this.segments = ctx.makeCollection(segments);
+      this.segments = new SegmentCollection(segments, ctx);
+    }
+  }
+
+  /** The segments, indexed by a {@link StrTree} that packs them in sequence order. */
+  private static class SegmentCollection extends ShapeCollection<BufferedLine> {
+    SegmentCollection(List<BufferedLine> segments, SpatialContext ctx) {
+      super(segments, ctx);
+    }
+
+    @Override
+    protected StrTree<BufferedLine> makeIndex() {
+      return new StrTree<BufferedLine>(shapes, StrTree.DEFAULT_NODE_CAPACITY, true, ctx);
     }
   }
 
@@ -19,6 +19,7 @@ package com.spatial4j.core.shape.impl;
 
 import com.spatial4j.core.context.SpatialContext;
 import com.spatial4j.core.distance.DistanceUtils;
+import com.spatial4j.core.distance.NVectorDistCalc;
 import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.Rectangle;
 import com.spatial4j.core.shape.SpatialRelation;
@@ -31,7 +32,9 @@ import java.util.Locale;
  */
 public class GeoCircle extends CircleImpl {
   private GeoCircle inverseCircle;//when distance reaches > 1/2 way around the world, cache the inverse.
+  private boolean useInverseCircle;//inverseCircle is retained for re-use by reset() even when false
   private double horizAxisY;//see getYAxis
+  private double radiusChordSquared;//when relating NVectorPoints; otherwise NaN
 
   public GeoCircle(Point p, double radiusDEG, SpatialContext ctx) {
     super(p, radiusDEG, ctx);
@@ -46,6 +49,8 @@ public class GeoCircle extends CircleImpl {
   }
 
   private void init() {
+    radiusChordSquared = ctx.getDistCalc() instanceof NVectorDistCalc && point instanceof NVectorPoint
+        ? NVectorDistCalc.chordSquared(radiusDEG) : Double.NaN;
     if (radiusDEG > 90) {
       //--spans more than half the globe
       assert enclosingBox.getWidth() == 360;
@@ -63,12 +68,13 @@ public class GeoCircle extends CircleImpl {
         } else {
           inverseCircle = new GeoCircle(ctx.makePoint(backX, backY), backRadius, ctx);
         }
+        useInverseCircle = true;
       } else {
-        inverseCircle = null;//whole globe
+        useInverseCircle = false;//whole globe
       }
       horizAxisY = getCenter().getY();//although probably not used
     } else {
-      inverseCircle = null;
+      useInverseCircle = false;
       double _horizAxisY = ctx.getDistCalc().calcBoxByDistFromPt_yHorizAxisDEG(getCenter(), radiusDEG, ctx);
       //some rare numeric conditioning cases can cause this to be barely beyond the box
       if (_horizAxisY > enclosingBox.getMaxY()) {
@@ -82,6 +88,15 @@ public class GeoCircle extends CircleImpl {
     }
   }
 
+  @Override
+  public SpatialRelation relate(Point point) {
+    if (point instanceof NVectorPoint && !Double.isNaN(radiusChordSquared)) {
+      return NVectorDistCalc.chordSquared((NVectorPoint) this.point, (NVectorPoint) point) <= radiusChordSquared
+          ? SpatialRelation.CONTAINS : SpatialRelation.DISJOINT;
+    }
+    return super.relate(point);
+  }
+
   @Override
   protected double getYAxis() {
     return horizAxisY;
@@ -95,7 +110,7 @@ public class GeoCircle extends CircleImpl {
   @Override
   protected SpatialRelation relateRectanglePhase2(Rectangle r, SpatialRelation bboxSect) {
 
-    if (inverseCircle != null) {
+    if (useInverseCircle) {
       return inverseCircle.relate(r).inverse();
     }
 
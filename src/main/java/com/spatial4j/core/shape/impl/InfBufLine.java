@@ -35,61 +35,75 @@ public class InfBufLine {
 
   // line: y = slope * x + intercept
 
-  private final double slope;//can be infinite for vertical line
+  private double slope;//can be infinite for vertical line
   //if slope is infinite, this is x intercept, otherwise y intercept
-  private final double intercept;
+  private double intercept;
 
-  private final double buf;
+  private double buf;
 
-  private final double distDenomInv;//cached: 1 / Math.sqrt(slope * slope + 1)
+  private double distDenomInv;//cached: 1 / Math.sqrt(slope * slope + 1)
 
   InfBufLine(double slope, Point point, double buf) {
+    reset(slope, point.getX(), point.getY(), buf);
+  }
+
+  /** Re-initializes this line to pass through x,y; used by {@link BufferedLine#reset}. */
+  void reset(double slope, double x, double y, double buf) {
     assert !Double.isNaN(slope);
     this.slope = slope;
     if (Double.isInfinite(slope)) {
-      intercept = point.getX();
+      intercept = x;
       distDenomInv = Double.NaN;
     } else {
-      intercept = point.getY() - slope * point.getX();
+      intercept = y - slope * x;
       distDenomInv = 1 / Math.sqrt(slope * slope + 1);
     }
     this.buf = buf;
   }
 
-  SpatialRelation relate(Rectangle r, Point prC, Point scratch) {
-    assert r.getCenter().equals(prC);
+  /**
+   * Relates this line to {@code r}, given the center of r. Doesn't allocate
+   * any objects.
+   */
+  SpatialRelation relate(Rectangle r, double cX, double cY) {
+    int cQuad = quadrant(cX, cY);
 
-    int cQuad = quadrant(prC);
-
-    Point nearestP = scratch;
-    cornerByQuadrant(r, oppositeQuad[cQuad], nearestP);
-    boolean nearestContains = contains(nearestP);
+    int nearestQuad = oppositeQuad[cQuad];
+    double nearestX = cornerXByQuadrant(r, nearestQuad);
+    double nearestY = cornerYByQuadrant(r, nearestQuad);
+    boolean nearestContains = contains(nearestX, nearestY);
 
     if (nearestContains) {
-      Point farthestP = scratch;
-      nearestP = null;//just to be safe (same scratch object)
-      cornerByQuadrant(r, cQuad, farthestP);
-      boolean farthestContains = contains(farthestP);
+      boolean farthestContains = contains(cornerXByQuadrant(r, cQuad), cornerYByQuadrant(r, cQuad));
       if (farthestContains)
         return CONTAINS;
       return INTERSECTS;
     } else {// not nearestContains
-      if (quadrant(nearestP) == cQuad)
+      if (quadrant(nearestX, nearestY) == cQuad)
         return DISJOINT;//out of buffer on same side as center
       return INTERSECTS;//nearest & farthest points straddle the line
     }
   }
 
   boolean contains(Point p) {
-    return (distanceUnbuffered(p) <= buf);
+    return contains(p.getX(), p.getY());
+  }
+
+  boolean contains(double x, double y) {
+    return (distanceUnbuffered(x, y) <= buf);
   }
 
   /** INTERNAL AKA lineToPointDistance */
   public double distanceUnbuffered(Point c) {
+    return distanceUnbuffered(c.getX(), c.getY());
+  }
+
+  /** INTERNAL: see {@link #distanceUnbuffered(com.spatial4j.core.shape.Point)}. */
+  public double distanceUnbuffered(double x, double y) {
     if (Double.isInfinite(slope))
-      return Math.abs(c.getX() - intercept);
+      return Math.abs(x - intercept);
     // http://math.ucsd.edu/~wgarner/math4c/derivations/distance/distptline.htm
-    double num = Math.abs(c.getY() - slope * c.getX() - intercept);
+    double num = Math.abs(y - slope * x - intercept);
     return num * distDenomInv;
   }
 
@@ -108,15 +122,20 @@ public class InfBufLine {
 
   /** INTERNAL: AKA lineToPointQuadrant */
   public int quadrant(Point c) {
+    return quadrant(c.getX(), c.getY());
+  }
+
+  /** INTERNAL: see {@link #quadrant(com.spatial4j.core.shape.Point)}. */
+  public int quadrant(double x, double y) {
     //check vertical line case 1st
     if (Double.isInfinite(slope)) {
       //when slope is infinite, intercept is x intercept instead of y
-      return c.getX() > intercept ? 1 : 2; //4 : 3 would work too
+      return x > intercept ? 1 : 2; //4 : 3 would work too
     }
     //(below will work for slope==0 horizontal line too)
-    //is c above or below the line
-    double yAtCinLine = slope * c.getX() + intercept;
-    boolean above = c.getY() >= yAtCinLine;
+    //is x,y above or below the line
+    double yAtCinLine = slope * x + intercept;
+    boolean above = y >= yAtCinLine;
     if (slope > 0) {
       //if slope is a forward slash, then result is 2 | 4
       return above ? 2 : 4;
@@ -132,9 +151,15 @@ public class InfBufLine {
   private static final int[] oppositeQuad= {-1,3,4,1,2};
 
   public static void cornerByQuadrant(Rectangle r, int cornerQuad, Point out) {
-    double x = (cornerQuad == 1 || cornerQuad == 4) ? r.getMaxX() : r.getMinX();
-    double y = (cornerQuad == 1 || cornerQuad == 2) ? r.getMaxY() : r.getMinY();
-    out.reset(x, y);
+    out.reset(cornerXByQuadrant(r, cornerQuad), cornerYByQuadrant(r, cornerQuad));
+  }
+
+  private static double cornerXByQuadrant(Rectangle r, int cornerQuad) {
+    return (cornerQuad == 1 || cornerQuad == 4) ? r.getMaxX() : r.getMinX();
+  }
+
+  private static double cornerYByQuadrant(Rectangle r, int cornerQuad) {
+    return (cornerQuad == 1 || cornerQuad == 2) ? r.getMaxY() : r.getMinY();
   }
 
   public double getSlope() {
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape.impl;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.ShapeCollection;
+import com.spatial4j.core.shape.SpatialRelation;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A collection of points held in two parallel {@code double[]} arrays instead of one {@link Point}
+ * object each, analogous to an OGC MultiPoint. It relates, and computes its bounding box, directly
+ * over the arrays; {@link #getShapes()} is a view that creates points on demand.
+ * <p/>
+ * Optionally the points are sorted by x, in which case relate() only looks at the points within
+ * the x range of the other shape's bounding box, found by binary search.
+ */
+public class MultiPoint extends ShapeCollection<Point> {
+
+  protected final double[] xs;
+  protected final double[] ys;
+  protected final boolean sortedByX;
+
+  /**
+   * @param xs Copied by reference!
+   * @param ys Copied by reference! Same length as xs.
+   */
+  public MultiPoint(double[] xs, double[] ys, SpatialContext ctx) {
+    this(xs, ys, false, ctx);
+  }
+
+  /**
+   * @param xs Copied by reference!
+   * @param ys Copied by reference! Same length as xs.
+   * @param sortByX If true then the points are sorted by x, in place in the given arrays.
+   */
+  public MultiPoint(double[] xs, double[] ys, boolean sortByX, SpatialContext ctx) {
+    super(new PointList(sortByX ? sortByX(xs, ys) : xs, ys, ctx), ctx, Integer.MAX_VALUE);//relate() doesn't use an index
+    this.xs = xs;
+    this.ys = ys;
+    this.sortedByX = sortByX;
+  }
+
+  private static double[] sortByX(double[] xs, double[] ys) {
+    if (xs.length != ys.length)
+      throw new IllegalArgumentException("xs and ys lengths differ: " + xs.length + " " + ys.length);
+    sort(xs, ys, 0, xs.length - 1);
+    return xs;
+  }
+
+  /** Quicksort of xs, carrying ys along. */
+  private static void sort(double[] xs, double[] ys, int lo, int hi) {
+    while (hi - lo > 0) {
+      double pivot = xs[(lo + hi) >>> 1];
+      int i = lo, j = hi;
+      while (i <= j) {
+        while (xs[i] < pivot) i++;
+        while (xs[j] > pivot) j--;
+        if (i <= j) {
+          swap(xs, i, j);
+          swap(ys, i, j);
+          i++;
+          j--;
+        }
+      }
+      //recurse into the smaller side
+      if (j - lo < hi - i) {
+        sort(xs, ys, lo, j);
+        lo = i;
+      } else {
+        sort(xs, ys, i, hi);
+        hi = j;
+      }
+    }
+  }
+
+  private static void swap(double[] a, int i, int j) {
+    double t = a[i];
+    a[i] = a[j];
+    a[j] = t;
+  }
+
+  /** A read-only view of the arrays as points. */
+  private static class PointList extends AbstractList<Point> implements RandomAccess {
+    final double[] xs;
+    final double[] ys;
+    final SpatialContext ctx;
+
+    PointList(double[] xs, double[] ys, SpatialContext ctx) {
+      if (xs.length != ys.length)
+        throw new IllegalArgumentException("xs and ys lengths differ: " + xs.length + " " + ys.length);
+      this.xs = xs;
+      this.ys = ys;
+      this.ctx = ctx;
+    }
+
+    @Override
+    public Point get(int index) {
+      return new PointImpl(xs[index], ys[index], ctx);
+    }
+
+    @Override
+    public int size() {
+      return xs.length;
+    }
+  }
+
+  /** Called by the super constructor, before our fields are set. */
+  @Override
+  protected Rectangle computeBoundingBox(Collection<? extends Shape> shapes, SpatialContext ctx) {
+    if (!(shapes instanceof PointList))
+      return super.computeBoundingBox(shapes, ctx);
+    final double[] xs = ((PointList) shapes).xs;
+    final double[] ys = ((PointList) shapes).ys;
+    final int n = xs.length;
+    if (n == 0)
+      return ctx.makeRectangle(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    double minY = Double.POSITIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (double y : ys) {
+      minY = Math.min(minY, y);
+      maxY = Math.max(maxY, y);
+    }
+    if (!ctx.isGeo()) {
+      double minX = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      for (double x : xs) {
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+      }
+      return ctx.makeRectangle(minX, maxX, minY, maxY);
+    }
+    //Geo: the smallest longitude range is the complement of the widest gap between the sorted
+    // longitudes (+180 is -180).
+    double[] lons = Arrays.copyOf(xs, n);
+    for (int i = 0; i < n; i++) {
+      if (lons[i] == 180)
+        lons[i] = -180;
+    }
+    Arrays.sort(lons);
+    double minX = lons[0];
+    double maxX = lons[n - 1];
+    double widestGap = lons[0] + 360 - lons[n - 1];//across the dateline
+    for (int i = 1; i < n; i++) {
+      double gap = lons[i] - lons[i - 1];
+      if (gap > widestGap) {
+        widestGap = gap;
+        minX = lons[i];
+        maxX = lons[i - 1];
+      }
+    }
+    if (maxX == -180 && minX != -180)
+      maxX = 180;
+    return ctx.makeRectangle(minX, maxX, minY, maxY);
+  }
+
+  public double getX(int index) {
+    return xs[index];
+  }
+
+  public double getY(int index) {
+    return ys[index];
+  }
+
+  public boolean isSortedByX() {
+    return sortedByX;
+  }
+
+  @Override
+  public boolean hasArea() {
+    return false;
+  }
+
+  @Override
+  public double getArea(SpatialContext ctx) {
+    return 0;
+  }
+
+  @Override
+  public SpatialRelation relate(Shape other) {
+    final SpatialRelation bboxSect = bbox.relate(other);
+    if (bboxSect == SpatialRelation.DISJOINT || bboxSect == SpatialRelation.WITHIN)
+      return bboxSect;
+
+    if (other instanceof Point)
+      return containsPoint(((Point) other).getX(), ((Point) other).getY())
+          ? SpatialRelation.INTERSECTS : SpatialRelation.DISJOINT;
+
+    //Points outside other's bounding box are DISJOINT. The rest are related individually like
+    // ShapeCollection does via Point.relate(other); the result is combined.
+    final PreparedRectangle otherBox = new PreparedRectangle(other.getBoundingBox(), ctx);
+    final PointImpl reusePoint = new PointImpl(0, 0, ctx);
+    SpatialRelation sect = null;
+    int numVisited = 0;
+    if (sortedByX) {
+      //the x ranges of otherBox
+      final double minX = otherBox.getMinX(), maxX = otherBox.getMaxX();
+      double[] ranges;
+      if (!ctx.isGeo()) {
+        ranges = new double[]{minX, maxX};
+      } else if (otherBox.getWidth() == 360) {
+        ranges = new double[]{-180, 180};
+      } else if (otherBox.getCrossesDateLine()) {
+        ranges = new double[]{minX, 180, -180, maxX};
+      } else if (maxX == 180) {//-180 is the same meridian
+        ranges = new double[]{minX, maxX, -180, -180};
+      } else if (minX == -180) {
+        ranges = new double[]{minX, maxX, 180, 180};
+      } else {
+        ranges = new double[]{minX, maxX};
+      }
+      for (int r = 0; r < ranges.length; r += 2) {
+        final int end = upperBoundX(ranges[r + 1]);
+        for (int i = lowerBoundX(ranges[r]); i < end; i++) {
+          if (ys[i] < otherBox.getMinY() || ys[i] > otherBox.getMaxY())
+            continue;
+          numVisited++;
+          SpatialRelation nextSect = relatePoint(xs[i], ys[i], other, otherBox, reusePoint);
+          sect = (sect == null) ? nextSect : sect.combine(nextSect);
+          if (sect == SpatialRelation.INTERSECTS)
+            return sect;
+        }
+      }
+    } else {
+      for (int i = 0; i < xs.length; i++) {
+        if (!otherBox.contains(xs[i], ys[i]))
+          continue;
+        numVisited++;
+        SpatialRelation nextSect = relatePoint(xs[i], ys[i], other, otherBox, reusePoint);
+        sect = (sect == null) ? nextSect : sect.combine(nextSect);
+        if (sect == SpatialRelation.INTERSECTS)
+          return sect;
+      }
+    }
+    if (numVisited < xs.length)
+      return sect == null ? SpatialRelation.DISJOINT : sect.combine(SpatialRelation.DISJOINT);
+    return sect;
+  }
+
+  /** The relation of the point to other, given it's within other's bounding box. */
+  private SpatialRelation relatePoint(double x, double y, Shape other, PreparedRectangle otherBox, PointImpl reusePoint) {
+    if (other instanceof Rectangle)
+      return SpatialRelation.WITHIN;//otherBox is other
+    if (other instanceof CircleImpl)
+      return ((CircleImpl) other).contains(x, y) ? SpatialRelation.WITHIN : SpatialRelation.DISJOINT;
+    reusePoint.reset(x, y);
+    return other.relate(reusePoint).transpose();
+  }
+
+  private boolean containsPoint(double x, double y) {
+    int from = 0, to = xs.length;
+    if (sortedByX) {
+      from = lowerBoundX(x);
+      to = upperBoundX(x);
+    }
+    for (int i = from; i < to; i++) {
+      if (Double.compare(xs[i], x) == 0 && Double.compare(ys[i], y) == 0)
+        return true;
+    }
+    return false;
+  }
+
+  /** The index of the first point with x >= the given value. Requires sortedByX. */
+  private int lowerBoundX(double x) {
+    int lo = 0, hi = xs.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (xs[mid] < x)
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    return lo;
+  }
+
+  /** The index of the first point with x > the given value. Requires sortedByX. */
+  private int upperBoundX(double x) {
+    int lo = 0, hi = xs.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (xs[mid] <= x)
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    return lo;
+  }
+}
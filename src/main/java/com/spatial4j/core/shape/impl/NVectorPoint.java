@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape.impl;
+
+import com.spatial4j.core.context.SpatialContext;
+
+import static com.spatial4j.core.distance.DistanceUtils.toRadians;
+
+/**
+ * A geo point that also holds its position as a 3D unit vector from the center of the sphere,
+ * an "n-vector", computed when it's constructed or reset. The {@link
+ * com.spatial4j.core.distance.NVectorDistCalc} compares these vectors instead of doing
+ * trigonometry per pair of points. {@link SpatialContext#makePoint(double, double)} makes these
+ * when that's the context's calculator.
+ */
+public class NVectorPoint extends PointImpl {
+
+  private double vectorX;
+  private double vectorY;
+  private double vectorZ;
+
+  public NVectorPoint(double x, double y, SpatialContext ctx) {
+    super(x, y, ctx);
+  }
+
+  @Override
+  public void reset(double x, double y) {
+    super.reset(x, y);
+    double lat = toRadians(y);
+    double lon = toRadians(x);
+    double cosLat = Math.cos(lat);
+    vectorX = cosLat * Math.cos(lon);
+    vectorY = cosLat * Math.sin(lon);
+    vectorZ = Math.sin(lat);
+  }
+
+  /** The component toward latitude 0, longitude 0. */
+  public double getVectorX() {
+    return vectorX;
+  }
+
+  /** The component toward latitude 0, longitude 90. */
+  public double getVectorY() {
+    return vectorY;
+  }
+
+  /** The component toward the north pole. */
+  public double getVectorZ() {
+    return vectorZ;
+  }
+}
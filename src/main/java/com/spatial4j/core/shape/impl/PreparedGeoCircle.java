@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape.impl;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.distance.DistanceCalculator;
+import com.spatial4j.core.distance.GeodesicSphereDistCalc;
+import com.spatial4j.core.distance.NVectorDistCalc;
+import com.spatial4j.core.shape.Point;
+
+import static com.spatial4j.core.distance.DistanceUtils.toDegrees;
+import static com.spatial4j.core.distance.DistanceUtils.toRadians;
+
+/**
+ * A {@link GeoCircle} that precomputes what it can about its center and radius so that testing
+ * whether a point is contained is cheap, for a circle that is the query of many point tests.
+ * Points far in latitude or longitude are rejected and points in an inscribed box are accepted
+ * without trigonometry; the rest are tested with the haversine formula using the cached cosine of
+ * the center's latitude and a threshold derived from the radius. Points whose haversine value is
+ * too close to the threshold to be certain are deferred to the context's {@link
+ * com.spatial4j.core.distance.DistanceCalculator}, so the results are the same as GeoCircle's.
+ * <p/>
+ * Only used when the context's calculator computes great-circle distance: {@link
+ * GeodesicSphereDistCalc.Haversine}, {@link GeodesicSphereDistCalc.LawOfCosines}, {@link
+ * GeodesicSphereDistCalc.Vincenty} or {@link NVectorDistCalc}. Otherwise, e.g. for {@link
+ * GeodesicSphereDistCalc.Equirectangular} which only approximates it, this behaves just like
+ * GeoCircle.
+ */
+public class PreparedGeoCircle extends GeoCircle {
+
+  /** Relative and absolute (degrees) tolerance for deciding without the calculator. */
+  private static final double EPS = 1e-9;
+
+  private boolean prepared;
+  private double cosCenterLat;
+  private double havThreshold;//sin^2(radius/2); haversine of the radius
+  private double havTolerance;//haversine values this close to the threshold defer to the calculator
+  private double maxDLat;//latitude degrees beyond which a point is surely outside
+  private double maxDLon;//longitude degrees beyond which a point is surely outside; 180 for none
+  private double innerDLat;//a box of these half-widths around the center is surely inside
+  private double innerDLon;
+
+  public PreparedGeoCircle(Point p, double radiusDEG, SpatialContext ctx) {
+    super(p, radiusDEG, ctx);
+    prepare();
+  }
+
+  @Override
+  public void reset(double x, double y, double radiusDEG) {
+    super.reset(x, y, radiusDEG);
+    prepare();
+  }
+
+  private void prepare() {
+    prepared = !isEmpty() && isGreatCircle(ctx.getDistCalc());
+    if (!prepared)
+      return;
+    final double radiusRAD = toRadians(Math.min(radiusDEG, 180));
+    cosCenterLat = Math.cos(toRadians(point.getY()));
+    havThreshold = sinSquared(radiusRAD / 2);
+    //relative error, plus error from coordinates rounded to doubles (e.g. near the dateline)
+    havTolerance = havThreshold * EPS + Math.sqrt(havThreshold) * 1e-12 + Double.MIN_NORMAL;
+
+    maxDLat = radiusDEG * (1 + EPS) + EPS;
+    //the circle's widest longitude span, if it doesn't reach a pole
+    double sinHalfWidth = Math.sin(radiusRAD) / cosCenterLat;
+    if (radiusDEG < 90 && sinHalfWidth < 1)
+      maxDLon = toDegrees(Math.asin(sinHalfWidth)) * (1 + EPS) + EPS;
+    else
+      maxDLon = 180;
+
+    //inscribed box: half the radius in latitude, and whatever longitude keeps the haversine
+    // value within the threshold at the least favorable latitude (cosine of 1).
+    double innerDLatRAD = radiusRAD / 2;
+    double sinSqHalfInnerDLon = (havThreshold - sinSquared(innerDLatRAD / 2)) / cosCenterLat;
+    double innerDLonRAD = sinSqHalfInnerDLon >= 1 ? Math.PI : 2 * Math.asin(Math.sqrt(sinSqHalfInnerDLon));
+    innerDLat = toDegrees(innerDLatRAD) * (1 - EPS) - EPS;
+    innerDLon = toDegrees(innerDLonRAD) * (1 - EPS) - EPS;
+  }
+
+  /** Whether the haversine formula agrees with the calculator, away from the threshold. */
+  private static boolean isGreatCircle(DistanceCalculator calc) {
+    return calc instanceof GeodesicSphereDistCalc.Haversine
+        || calc instanceof GeodesicSphereDistCalc.LawOfCosines
+        || calc instanceof GeodesicSphereDistCalc.Vincenty
+        || calc instanceof NVectorDistCalc;
+  }
+
+  private static double sinSquared(double rad) {
+    double s = Math.sin(rad);
+    return s * s;
+  }
+
+  @Override
+  public boolean contains(double x, double y) {
+    if (!prepared)
+      return super.contains(x, y);
+    final double dLat = Math.abs(y - point.getY());
+    if (dLat > maxDLat)
+      return false;
+    double dLon = Math.abs(x - point.getX());
+    if (dLon > 180)
+      dLon = 360 - dLon;
+    if (dLon > maxDLon)
+      return false;
+    if (dLat <= innerDLat && dLon <= innerDLon)
+      return true;
+    //haversine
+    double sinHalfDLat = Math.sin(toRadians(dLat) / 2);
+    double sinHalfDLon = Math.sin(toRadians(dLon) / 2);
+    double hav = sinHalfDLat * sinHalfDLat + cosCenterLat * Math.cos(toRadians(y)) * sinHalfDLon * sinHalfDLon;
+    if (hav < havThreshold - havTolerance)
+      return true;
+    if (hav > havThreshold + havTolerance)
+      return false;
+    return super.contains(x, y);//too close to call
+  }
+}
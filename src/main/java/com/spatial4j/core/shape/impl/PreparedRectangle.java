@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape.impl;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.SpatialRelation;
+
+/**
+ * A {@link RectangleImpl} that precomputes its dateline and world-wrap state so that relating a
+ * point is a few comparisons, for a rectangle that is the query of many point tests. The results
+ * are the same as RectangleImpl's.
+ */
+public class PreparedRectangle extends RectangleImpl {
+
+  //Note: these are set by reset(), called by the super constructor; don't initialize them here.
+  private boolean geo;
+  private boolean worldWrap;//geo and spans 360 degrees longitude
+  private double unwrappedMaxX;//maxX, plus 360 if it crosses the dateline
+
+  public PreparedRectangle(double minX, double maxX, double minY, double maxY, SpatialContext ctx) {
+    super(minX, maxX, minY, maxY, ctx);
+  }
+
+  /** Copy constructor. */
+  public PreparedRectangle(Rectangle r, SpatialContext ctx) {
+    super(r, ctx);
+  }
+
+  @Override
+  public void reset(double minX, double maxX, double minY, double maxY) {
+    super.reset(minX, maxX, minY, maxY);
+    geo = ctx.isGeo();
+    double rawWidth = maxX - minX;
+    worldWrap = geo && rawWidth == 360;
+    unwrappedMaxX = geo && rawWidth < 0 ? maxX + 360 : maxX;
+  }
+
+  public boolean contains(double x, double y) {
+    if (y > getMaxY() || y < getMinY())
+      return false;
+    final double minX = getMinX();
+    if (geo) {
+      if (worldWrap)
+        return true;
+      //shift to potentially overlap, like RectangleImpl.relate(Point)
+      if (x < minX)
+        x += 360;
+      else if (x > unwrappedMaxX)
+        x -= 360;
+      else
+        return true;
+    }
+    return !(x < minX || x > unwrappedMaxX);
+  }
+
+  @Override
+  public SpatialRelation relate(Point point) {
+    return contains(point.getX(), point.getY()) ? SpatialRelation.CONTAINS : SpatialRelation.DISJOINT;
+  }
+}
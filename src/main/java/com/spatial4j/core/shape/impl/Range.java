@@ -164,21 +164,78 @@ public class Range {
     }
 
     public LongitudeRange expandTo(LongitudeRange other) {
-      LongitudeRange a, b;// a.ctr <= b.ctr
-      if (this.compareTo(other) <= 0) {
-        a = this;
-        b = other;
+      double[] minMax = new double[2];
+      expand(min, max, other.min, other.max, minMax);
+      if (minMax[0] == min && minMax[1] == max)
+        return this;
+      if (minMax[0] == other.min && minMax[1] == other.max)
+        return other;
+      if (minMax[0] == -180 && minMax[1] == 180)
+        return WORLD_180E180W;
+      return new LongitudeRange(minMax[0], minMax[1]);
+    }
+
+    /**
+     * Expands the longitude range {@code [min1, max1]} to include {@code [min2, max2]}, putting the
+     * min and max of the result into {@code minMaxOut}, which may hold the first range. If one range
+     * contains the other then that's the result. Otherwise the range whose center is further west
+     * supplies the min and the other supplies the max, unless together they wrap around the world.
+     * Doesn't allocate.
+     */
+    public static void expand(double min1, double max1, double min2, double max2, double[] minMaxOut) {
+      //a's center is west of (or at) b's
+      double aMin = min1, aMax = max1, bMin = min2, bMax = max2;
+      if (diff(center(aMin, aMax), center(bMin, bMax)) > 0) {
+        aMin = min2;
+        aMax = max2;
+        bMin = min1;
+        bMax = max1;
+      }
+      if (containsRange(aMin, aMax, bMin, bMax)) {
+        minMaxOut[0] = aMin;
+        minMaxOut[1] = aMax;
+      } else if (containsRange(bMin, bMax, aMin, aMax)) {
+        minMaxOut[0] = bMin;
+        minMaxOut[1] = bMax;
       } else {
-        a = other;
-        b = this;
+        boolean minFromB = contains(bMin, bMax, aMin);
+        boolean maxFromA = contains(aMin, aMax, bMax);
+        if (minFromB && maxFromA) {//together they wrap around the world
+          minMaxOut[0] = -180;
+          minMaxOut[1] = 180;
+        } else {
+          minMaxOut[0] = minFromB ? bMin : aMin;
+          minMaxOut[1] = maxFromA ? aMax : bMax;
+        }
       }
-      LongitudeRange newMin = b.contains(a.min) ? b : a;//usually 'a'
-      LongitudeRange newMax = a.contains(b.max) ? a : b;//usually 'b'
-      if (newMin == newMax)
-        return newMin;
-      if (newMin == b && newMax == a)
-        return WORLD_180E180W;
-      return new LongitudeRange(newMin.min, newMax.max);
+    }
+
+    private static double width(double min, double max) {
+      double w = max - min;
+      return w < 0 ? w + 360 : w;
+    }
+
+    private static double center(double min, double max) {
+      double ctr = min + width(min, max) / 2;
+      return ctr > 180 ? ctr - 360 : ctr;
+    }
+
+    private static boolean contains(double min, double max, double v) {
+      if (min <= max)
+        return v >= min && v <= max;
+      return v >= min || v <= max;
+    }
+
+    private static boolean containsRange(double min, double max, double otherMin, double otherMax) {
+      double width = width(min, max);
+      if (width == 360)
+        return true;
+      double offset = otherMin - min;//eastward from min to otherMin
+      if (offset < 0)
+        offset += 360;
+      if (offset >= 360)
+        offset -= 360;
+      return offset + width(otherMin, otherMax) <= width;
     }
   }
 }
@@ -185,7 +185,7 @@ public class RectangleImpl extends BaseShape<SpatialContext> implements Rectangl
       //unwrap dateline and normalize +180 to become -180
       double rawWidth = maxX - minX;
       if (rawWidth < 0) {
-        maxX = minX + (rawWidth + 360);
+        maxX += 360;//(not minX + rawWidth + 360, which can round to exclude the original maxX)
       }
       //shift to potentially overlap
       if (pX < minX) {
@@ -23,18 +23,19 @@ import com.spatial4j.core.exception.InvalidShapeException;
 import com.spatial4j.core.shape.*;
 import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.impl.BufferedLineString;
+import com.spatial4j.core.shape.impl.CircleImpl;
 import com.spatial4j.core.shape.impl.PointImpl;
 import com.spatial4j.core.shape.impl.Range;
 import com.spatial4j.core.shape.impl.RectangleImpl;
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.geom.prep.PreparedGeometry;
-import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 import com.vividsolutions.jts.operation.union.UnaryUnionOp;
 import com.vividsolutions.jts.operation.valid.IsValidOp;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Wraps a JTS {@link Geometry} (i.e. may be a polygon or basically anything).
@@ -48,9 +49,17 @@ public class JtsGeometry extends BaseShape<JtsSpatialContext> {
   private final Geometry geom;//cannot be a direct instance of GeometryCollection as it doesn't support relate()
   private final boolean hasArea;
   private final Rectangle bbox;
-  protected PreparedGeometry preparedGeometry;
+  protected volatile PreparedGeometry preparedGeometry;
+  protected volatile JtsPointGrid pointGrid;
   protected boolean validated = false;
 
+  //for auto-indexing; see JtsSpatialContext.getAutoIndexRelateCount()
+  private int relateCount;//racy; approximate is fine
+  private int numPoints = -1;//lazy; racy but idempotent
+  private volatile int autoIndexClaimed;//1 when a thread has claimed building the index
+  private static final AtomicIntegerFieldUpdater<JtsGeometry> AUTO_INDEX_CLAIMED =
+      AtomicIntegerFieldUpdater.newUpdater(JtsGeometry.class, "autoIndexClaimed");
+
   public JtsGeometry(Geometry geom, JtsSpatialContext ctx, boolean dateline180Check, boolean allowMultiOverlap) {
     super(ctx);
     //GeometryCollection isn't supported in relate()
@@ -140,12 +149,61 @@ public class JtsGeometry extends BaseShape<JtsSpatialContext> {
    * Adds an index to this class internally to compute spatial relations faster. In JTS this
    * is called a {@link com.vividsolutions.jts.geom.prep.PreparedGeometry}.  This
    * isn't done by default because it takes some time to do the optimization, and it uses more
-   * memory.  Calling this method isn't thread-safe so be careful when this is done. If it was
-   * already indexed then nothing happens.
+   * memory; but see {@link JtsSpatialContext#getAutoIndexRelateCount()}. This is thread-safe, and
+   * so is relating the indexed geometry from many threads, which a JTS PreparedGeometry isn't on its
+   * own. If it was already indexed then nothing happens.
    */
   public void index() {
     if (preparedGeometry == null)
-      preparedGeometry = PreparedGeometryFactory.prepare(geom);
+      preparedGeometry = ThreadSafePreparedGeometryFactory.prepare(geom);
+  }
+
+  /**
+   * Builds a {@link JtsPointGrid} to make {@link #relate(com.spatial4j.core.shape.Point)} faster,
+   * and also calls {@link #index()} to handle the points that the grid can't. This is worthwhile
+   * for a big polygon that is related to many points, e.g. for reverse geocoding. Thread-safe;
+   * if it was already built then nothing happens.
+   *
+   * @param maxCells the maximum number of grid cells; see {@link JtsPointGrid#DEFAULT_MAX_CELLS}.
+   */
+  public void buildPointGrid(int maxCells) {
+    index();
+    if (pointGrid == null && !geom.isEmpty())
+      pointGrid = new JtsPointGrid(geom, maxCells);
+  }
+
+  /** The grid built by {@link #buildPointGrid(int)}, or null. */
+  public JtsPointGrid getPointGrid() {
+    return pointGrid;
+  }
+
+  /** Whether {@link #index()} has been called, possibly automatically. */
+  public boolean isIndexed() {
+    return preparedGeometry != null;
+  }
+
+  /**
+   * Called when relating to a geometry and there's no index. If the auto-index criteria are met,
+   * then one thread indexes this geometry, without blocking others.
+   * @return the prepared geometry, or null if there isn't one (yet).
+   */
+  private PreparedGeometry autoIndex() {
+    final int relateThreshold = ctx.getAutoIndexRelateCount();
+    final int pointThreshold = ctx.getAutoIndexPointCount();
+    if (relateThreshold <= 0 && pointThreshold <= 0)
+      return null;
+    if (autoIndexClaimed != 0)//another thread is indexing; don't wait
+      return preparedGeometry;
+    boolean doIndex = relateThreshold > 0 && ++relateCount >= relateThreshold;
+    if (!doIndex && pointThreshold > 0) {
+      int points = numPoints;
+      if (points < 0)
+        numPoints = points = geom.getNumPoints();
+      doIndex = points >= pointThreshold;
+    }
+    if (doIndex && AUTO_INDEX_CLAIMED.compareAndSet(this, 0, 1))
+      index();
+    return preparedGeometry;
   }
 
   @Override
@@ -162,19 +220,19 @@ public class JtsGeometry extends BaseShape<JtsSpatialContext> {
     final Envelope env = geoms.getEnvelopeInternal();//for minY & maxY (simple)
     if (env.getWidth() > 180 && geoms.getNumGeometries() > 1)  {
       // This is ShapeCollection's bbox algorithm
-      Range xRange = null;
+      double[] xRange = new double[2];//min, max
       for (int i = 0; i < geoms.getNumGeometries(); i++ ) {
         Envelope envI = geoms.getGeometryN(i).getEnvelopeInternal();
-        Range xRange2 = new Range.LongitudeRange(envI.getMinX(), envI.getMaxX());
-        if (xRange == null) {
-          xRange = xRange2;
+        if (i == 0) {
+          xRange[0] = envI.getMinX();
+          xRange[1] = envI.getMaxX();
         } else {
-          xRange = xRange.expandTo(xRange2);
+          Range.LongitudeRange.expand(xRange[0], xRange[1], envI.getMinX(), envI.getMaxX(), xRange);
         }
-        if (xRange == Range.LongitudeRange.WORLD_180E180W)
+        if (xRange[0] == -180 && xRange[1] == 180)
           break; // can't grow any bigger
       }
-      return new RectangleImpl(xRange.getMin(), xRange.getMax(), env.getMinY(), env.getMaxY(), ctx);
+      return new RectangleImpl(xRange[0], xRange[1], env.getMinY(), env.getMaxY(), ctx);
     } else {
       return new RectangleImpl(env.getMinX(), env.getMaxX(), env.getMinY(), env.getMaxY(), ctx);
     }
@@ -236,6 +294,12 @@ public class JtsGeometry extends BaseShape<JtsSpatialContext> {
   public SpatialRelation relate(Point pt) {
     if (!getBoundingBox().relate(pt).intersects())
       return SpatialRelation.DISJOINT;
+    final JtsPointGrid pointGrid = this.pointGrid;
+    if (pointGrid != null) {
+      SpatialRelation gridR = pointGrid.relate(pt.getX(), pt.getY());
+      if (gridR != null)
+        return gridR;
+    }
     Geometry ptGeom;
     if (pt instanceof JtsPoint)
       ptGeom = ((JtsPoint)pt).getGeom();
@@ -253,31 +317,75 @@ public class JtsGeometry extends BaseShape<JtsSpatialContext> {
   }
 
   public SpatialRelation relate(Circle circle) {
+    //The bbox relation is a cheap conservative test: a circle can't intersect the geometry if it's
+    // disjoint from the bbox, and contains the geometry if it contains the bbox.
     SpatialRelation bboxR = bbox.relate(circle);
     if (bboxR == SpatialRelation.WITHIN || bboxR == SpatialRelation.DISJOINT)
       return bboxR;
 
     //Test each point to see how many of them are outside of the circle.
-    //TODO consider instead using geom.apply(CoordinateSequenceFilter) -- maybe faster since avoids Coordinate[] allocation
-    Coordinate[] coords = geom.getCoordinates();
-    int outside = 0;
-    int i = 0;
-    for (Coordinate coord : coords) {
-      i++;
-      SpatialRelation sect = circle.relate(new PointImpl(coord.x, coord.y, ctx));
-      if (sect == SpatialRelation.DISJOINT)
-        outside++;
-      if (i != outside && outside != 0)//short circuit: partially outside, partially inside
-        return SpatialRelation.INTERSECTS;
-    }
-    if (i == outside) {
+    // We stream the coordinates to avoid geom.getCoordinates() allocating a Coordinate[] copy.
+    CircleVertexFilter filter = new CircleVertexFilter(circle);
+    geom.apply(filter);
+    if (filter.isDone())//short circuit: partially outside, partially inside
+      return SpatialRelation.INTERSECTS;
+    if (filter.numVisited == filter.numOutside) {
       return (relate(circle.getCenter()) == SpatialRelation.DISJOINT)
           ? SpatialRelation.DISJOINT : SpatialRelation.CONTAINS;
     }
-    assert outside == 0;
+    assert filter.numOutside == 0;
     return SpatialRelation.WITHIN;
   }
 
+  /**
+   * Counts the coordinates outside of a circle, until there are some both inside and outside. Doesn't
+   * allocate per coordinate.
+   */
+  private static class CircleVertexFilter implements CoordinateSequenceFilter {
+    private final Circle circle;
+    private final CircleImpl circleImpl;//null if circle isn't one; it has contains(x,y)
+    private final PointImpl scratch;//null if circleImpl isn't
+    int numVisited = 0;
+    int numOutside = 0;
+
+    CircleVertexFilter(Circle circle) {
+      this.circle = circle;
+      if (circle instanceof CircleImpl) {
+        circleImpl = (CircleImpl) circle;
+        scratch = null;
+      } else {
+        circleImpl = null;
+        scratch = new PointImpl(0, 0, circle.getContext());
+      }
+    }
+
+    @Override
+    public void filter(CoordinateSequence seq, int i) {
+      numVisited++;
+      double x = seq.getX(i);
+      double y = seq.getY(i);
+      boolean inside;
+      if (circleImpl != null) {
+        inside = circleImpl.contains(x, y);
+      } else {
+        scratch.reset(x, y);
+        inside = circle.relate(scratch) != SpatialRelation.DISJOINT;
+      }
+      if (!inside)
+        numOutside++;
+    }
+
+    @Override
+    public boolean isDone() {
+      return numOutside != 0 && numOutside != numVisited;
+    }
+
+    @Override
+    public boolean isGeometryChanged() {
+      return false;
+    }
+  }
+
   public SpatialRelation relate(JtsGeometry jtsGeometry) {
     //don't bother checking bbox since geom.relate() does this already
     return relate(jtsGeometry.geom);
@@ -285,14 +393,21 @@ public class JtsGeometry extends BaseShape<JtsSpatialContext> {
 
   protected SpatialRelation relate(Geometry oGeom) {
     //see http://docs.geotools.org/latest/userguide/library/jts/dim9.html#preparedgeometry
-    if (oGeom instanceof com.vividsolutions.jts.geom.Point) {
-      if (preparedGeometry != null)
-        return preparedGeometry.disjoint(oGeom) ? SpatialRelation.DISJOINT : SpatialRelation.CONTAINS;
-      return geom.disjoint(oGeom) ? SpatialRelation.DISJOINT : SpatialRelation.CONTAINS;
-    }
+    PreparedGeometry preparedGeometry = this.preparedGeometry;//volatile read once
     if (preparedGeometry == null)
-      return intersectionMatrixToSpatialRelation(geom.relate(oGeom));
-    else if (preparedGeometry.covers(oGeom))
+      preparedGeometry = autoIndex();
+    if (preparedGeometry != null)
+      return relate(preparedGeometry, oGeom);
+    if (oGeom instanceof com.vividsolutions.jts.geom.Point)
+      return geom.disjoint(oGeom) ? SpatialRelation.DISJOINT : SpatialRelation.CONTAINS;
+    return intersectionMatrixToSpatialRelation(geom.relate(oGeom));
+  }
+
+  /** Relates a prepared geometry to oGeom. */
+  static SpatialRelation relate(PreparedGeometry preparedGeometry, Geometry oGeom) {
+    if (oGeom instanceof com.vividsolutions.jts.geom.Point)
+      return preparedGeometry.disjoint(oGeom) ? SpatialRelation.DISJOINT : SpatialRelation.CONTAINS;
+    if (preparedGeometry.covers(oGeom))
       return SpatialRelation.CONTAINS;
     else if (preparedGeometry.coveredBy(oGeom))
       return SpatialRelation.WITHIN;
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape.jts;
+
+import com.spatial4j.core.shape.SpatialRelation;
+import com.vividsolutions.jts.algorithm.locate.IndexedPointInAreaLocator;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.CoordinateSequenceFilter;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Location;
+
+/**
+ * A raster over the envelope of a JTS {@link Geometry} whose cells are classified as being
+ * wholly inside the geometry, wholly outside of it, or on its boundary. It accelerates
+ * point-in-polygon tests, which for most points becomes an array lookup; only points in boundary
+ * cells must be tested against the geometry. The resolution is proportional to the number of
+ * vertices, up to a maximum number of cells. Each cell takes 2 bits.
+ * <p/>
+ * Built by {@link JtsGeometry#buildPointGrid(int)}. Immutable and thread-safe.
+ */
+public class JtsPointGrid {
+
+  /** The default maximum number of cells; 4M cells takes 1MB. */
+  public static final int DEFAULT_MAX_CELLS = 1 << 22;
+
+  //cells per vertex; a boundary crosses roughly 1-2 cells per vertex so most cells are not boundary
+  private static final int CELLS_PER_POINT = 16;
+  private static final int MIN_CELLS = 1024;
+
+  //2-bit cell states
+  private static final int UNKNOWN = 0;//only while building
+  private static final int BOUNDARY = 1;
+  private static final int INSIDE = 2;
+  private static final int OUTSIDE = 3;
+
+  private final double minX, minY, maxX, maxY;
+  private final int cols, rows;
+  private final double cellWidth, cellHeight;
+  private final double invCellWidth, invCellHeight;//0 if the envelope has no width/height
+  private final byte[] cells;//2 bits per cell, row major
+  private int numBoundaryCells;
+
+  JtsPointGrid(Geometry geom, int maxCells) {
+    if (maxCells < 1)
+      throw new IllegalArgumentException("maxCells must be >= 1: " + maxCells);
+    Envelope env = geom.getEnvelopeInternal();
+    if (env.isNull())
+      throw new IllegalArgumentException("Geometry is empty");
+    minX = env.getMinX();
+    minY = env.getMinY();
+    maxX = env.getMaxX();
+    maxY = env.getMaxY();
+
+    //choose the resolution: proportional to the vertices, with square-ish cells
+    long targetCells = Math.min(maxCells,
+        Math.max(MIN_CELLS, (long) geom.getNumPoints() * CELLS_PER_POINT));
+    double width = env.getWidth();
+    double height = env.getHeight();
+    if (width == 0 && height == 0) {
+      cols = rows = 1;
+    } else if (width == 0) {
+      cols = 1;
+      rows = (int) targetCells;
+    } else if (height == 0) {
+      cols = (int) targetCells;
+      rows = 1;
+    } else {
+      double colsD = Math.sqrt(targetCells * width / height);
+      cols = (int) Math.max(1, Math.min(targetCells, Math.round(colsD)));
+      rows = (int) Math.max(1, targetCells / cols);
+    }
+    cellWidth = width / cols;
+    cellHeight = height / rows;
+    invCellWidth = width == 0 ? 0 : cols / width;
+    invCellHeight = height == 0 ? 0 : rows / height;
+    cells = new byte[(int) (((long) cols * rows + 3) / 4)];
+
+    markBoundary(geom);
+    classifyRemaining(geom);
+  }
+
+  /**
+   * Returns {@link SpatialRelation#CONTAINS} if the geometry contains x,y, or
+   * {@link SpatialRelation#DISJOINT} if not, or null if x,y is in a boundary cell or outside the
+   * grid, in which case the caller must test the geometry.
+   */
+  public SpatialRelation relate(double x, double y) {
+    if (!(x >= minX && x <= maxX && y >= minY && y <= maxY))//(also handles NaN)
+      return null;
+    int col = Math.min(cols - 1, (int) ((x - minX) * invCellWidth));
+    int row = Math.min(rows - 1, (int) ((y - minY) * invCellHeight));
+    switch (get(row * cols + col)) {
+      case INSIDE: return SpatialRelation.CONTAINS;
+      case OUTSIDE: return SpatialRelation.DISJOINT;
+      default: return null;
+    }
+  }
+
+  public int getColumns() {
+    return cols;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  /** The number of cells intersecting the geometry's boundary; points in these are tested exactly. */
+  public int getNumBoundaryCells() {
+    return numBoundaryCells;
+  }
+
+  /** Approximate memory used by this object, in bytes. */
+  public long ramBytesUsed() {
+    return 16 + 10 * 8 + 16 + cells.length;//object & fields, array header & content
+  }
+
+  @Override
+  public String toString() {
+    return "JtsPointGrid(" + cols + "x" + rows + ", boundaryCells=" + numBoundaryCells
+        + ", bytes=" + ramBytesUsed() + ")";
+  }
+
+  private int get(int cell) {
+    return (cells[cell >>> 2] >>> ((cell & 3) << 1)) & 3;
+  }
+
+  private void set(int cell, int state) {
+    int shift = (cell & 3) << 1;
+    cells[cell >>> 2] = (byte) ((cells[cell >>> 2] & ~(3 << shift)) | (state << shift));
+  }
+
+  private int col(double x) {
+    return Math.max(0, Math.min(cols - 1, (int) Math.floor((x - minX) * invCellWidth)));
+  }
+
+  private int row(double y) {
+    return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) * invCellHeight)));
+  }
+
+  /** Marks every cell that a vertex or segment of the geometry touches, a bit conservatively. */
+  private void markBoundary(Geometry geom) {
+    //the margin ensures a point that rounds into a neighboring cell finds it marked too
+    final double epsX = cellWidth * 1e-6 + Math.ulp(Math.max(Math.abs(minX), Math.abs(maxX))) * 4;
+    final double epsY = cellHeight * 1e-6 + Math.ulp(Math.max(Math.abs(minY), Math.abs(maxY))) * 4;
+    geom.apply(new CoordinateSequenceFilter() {
+      @Override
+      public void filter(CoordinateSequence seq, int i) {
+        if (seq.size() == 1) {
+          markRange(seq.getX(0) - epsX, seq.getX(0) + epsX, seq.getY(0) - epsY, seq.getY(0) + epsY);
+        } else if (i > 0) {
+          markSegment(seq.getX(i - 1), seq.getY(i - 1), seq.getX(i), seq.getY(i), epsX, epsY);
+        }
+      }
+
+      @Override public boolean isDone() { return false; }
+
+      @Override public boolean isGeometryChanged() { return false; }
+    });
+  }
+
+  private void markSegment(double x0, double y0, double x1, double y1, double epsX, double epsY) {
+    if (x0 > x1) {//make x0 <= x1
+      double t = x0; x0 = x1; x1 = t;
+      t = y0; y0 = y1; y1 = t;
+    }
+    int colStart = col(x0 - epsX);
+    int colEnd = col(x1 + epsX);
+    if (colStart == colEnd || x0 == x1) {
+      markRange(x0 - epsX, x1 + epsX, Math.min(y0, y1) - epsY, Math.max(y0, y1) + epsY);
+      return;
+    }
+    double slope = (y1 - y0) / (x1 - x0);
+    //for each column, find the y range of the part of the segment in it
+    for (int col = colStart; col <= colEnd; col++) {
+      double stripMinX = Math.max(x0, minX + col * cellWidth - epsX);
+      double stripMaxX = Math.min(x1, minX + (col + 1) * cellWidth + epsX);
+      if (stripMinX > stripMaxX)
+        continue;
+      double yA = y0 + (stripMinX - x0) * slope;
+      double yB = y0 + (stripMaxX - x0) * slope;
+      int rowStart = row(Math.min(yA, yB) - epsY);
+      int rowEnd = row(Math.max(yA, yB) + epsY);
+      for (int row = rowStart; row <= rowEnd; row++)
+        mark(row * cols + col);
+    }
+  }
+
+  private void markRange(double x0, double x1, double y0, double y1) {
+    int colEnd = col(x1);
+    int rowEnd = row(y1);
+    for (int row = row(y0); row <= rowEnd; row++) {
+      for (int col = col(x0); col <= colEnd; col++)
+        mark(row * cols + col);
+    }
+  }
+
+  private void mark(int cell) {
+    if (get(cell) != BOUNDARY) {
+      set(cell, BOUNDARY);
+      numBoundaryCells++;
+    }
+  }
+
+  /**
+   * Classifies the non-boundary cells. Adjacent non-boundary cells are on the same side of the
+   * boundary, so we test one cell's center per connected region and flood-fill the rest.
+   */
+  private void classifyRemaining(Geometry geom) {
+    IndexedPointInAreaLocator locator = geom.getDimension() == 2 ? new IndexedPointInAreaLocator(geom) : null;
+    Coordinate coord = new Coordinate();
+    int[] stack = new int[64];
+    final int numCells = cols * rows;
+    for (int cell = 0; cell < numCells; cell++) {
+      if (get(cell) != UNKNOWN)
+        continue;
+      int state = OUTSIDE;//a geometry without area has no inside
+      if (locator != null) {
+        coord.x = minX + (cell % cols + 0.5) * cellWidth;
+        coord.y = minY + (cell / cols + 0.5) * cellHeight;
+        state = locator.locate(coord) == Location.INTERIOR ? INSIDE : OUTSIDE;
+      }
+      //flood fill
+      set(cell, state);
+      int stackSize = 0;
+      stack[stackSize++] = cell;
+      while (stackSize > 0) {
+        int c = stack[--stackSize];
+        int col = c % cols;
+        int row = c / cols;
+        if (stackSize + 4 > stack.length) {
+          int[] newStack = new int[stack.length * 2];
+          System.arraycopy(stack, 0, newStack, 0, stackSize);
+          stack = newStack;
+        }
+        if (col > 0 && get(c - 1) == UNKNOWN) { set(c - 1, state); stack[stackSize++] = c - 1; }
+        if (col < cols - 1 && get(c + 1) == UNKNOWN) { set(c + 1, state); stack[stackSize++] = c + 1; }
+        if (row > 0 && get(c - cols) == UNKNOWN) { set(c - cols, state); stack[stackSize++] = c - cols; }
+        if (row < rows - 1 && get(c + cols) == UNKNOWN) { set(c + cols, state); stack[stackSize++] = c + cols; }
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape.jts;
+
+import com.spatial4j.core.context.jts.JtsSpatialContext;
+import com.spatial4j.core.shape.Circle;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.PreparedQuery;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.SpatialRelation;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+
+/**
+ * A {@link PreparedQuery} for a {@link JtsGeometry}. It holds a JTS {@link PreparedGeometry} of
+ * the query, like {@link JtsGeometry#index()} but without modifying the query shape, and it reuses
+ * JTS geometries for candidate points and rectangles instead of creating them per candidate.
+ * <p/>
+ * Not thread-safe; use one per thread.
+ */
+public class JtsPreparedQuery extends PreparedQuery {
+
+  protected final JtsSpatialContext ctx;
+  protected final PreparedGeometry preparedGeometry;
+
+  //reused for candidates; modified in place
+  private final com.vividsolutions.jts.geom.Point pointGeom;
+  private final Polygon rectGeom;
+
+  public JtsPreparedQuery(JtsGeometry query) {
+    super(query);
+    this.ctx = query.getContext();
+    this.preparedGeometry = ThreadSafePreparedGeometryFactory.prepare(query.getGeom());
+    this.pointGeom = ctx.getGeometryFactory().createPoint(new Coordinate(0, 0));
+    this.rectGeom = (Polygon) ctx.getGeometryFactory().toGeometry(new Envelope(0, 1, 0, 1));
+  }
+
+  @Override
+  public JtsGeometry getQuery() {
+    return (JtsGeometry) query;
+  }
+
+  /** Equivalent to {@code getQuery().relate(candidate)} when the query is {@link JtsGeometry#index()}'ed. */
+  @Override
+  public SpatialRelation relate(Shape candidate) {
+    if (empty || candidate.isEmpty())
+      return query.relate(candidate);
+    if (candidate instanceof Point) {
+      Point pt = (Point) candidate;
+      if (!bbox.relate(pt).intersects())
+        return SpatialRelation.DISJOINT;
+      Geometry ptGeom = pt instanceof JtsPoint ? ((JtsPoint) pt).getGeom() : toPointGeom(pt);
+      return preparedGeometry.disjoint(ptGeom) ? SpatialRelation.DISJOINT : SpatialRelation.CONTAINS;
+    } else if (candidate instanceof Rectangle) {
+      Rectangle rect = (Rectangle) candidate;
+      SpatialRelation bboxR = bbox.relate(rect);
+      if (bboxR == SpatialRelation.WITHIN || bboxR == SpatialRelation.DISJOINT)
+        return bboxR;
+      return relate(toRectGeom(rect));
+    } else if (candidate instanceof JtsGeometry) {
+      if (!bboxIntersects(candidate))
+        return SpatialRelation.DISJOINT;
+      return relate(((JtsGeometry) candidate).getGeom());
+    } else if (candidate instanceof Circle) {
+      return query.relate(candidate);//no use for the prepared geometry
+    }
+    return super.relate(candidate);
+  }
+
+  /** Like {@link JtsGeometry#relate(Geometry)} with a prepared geometry. */
+  protected SpatialRelation relate(Geometry oGeom) {
+    return JtsGeometry.relate(preparedGeometry, oGeom);
+  }
+
+  private Geometry toPointGeom(Point pt) {
+    pointGeom.getCoordinateSequence().setOrdinate(0, CoordinateSequence.X, pt.getX());
+    pointGeom.getCoordinateSequence().setOrdinate(0, CoordinateSequence.Y, pt.getY());
+    pointGeom.geometryChanged();
+    return pointGeom;
+  }
+
+  private Geometry toRectGeom(Rectangle r) {
+    //a dateline crossing or degenerate rectangle isn't a single polygon
+    if (r.getCrossesDateLine() || r.getWidth() == 0 || r.getHeight() == 0)
+      return ctx.getGeometryFrom(r);
+    //same vertex order as GeometryFactory.toGeometry(Envelope)
+    CoordinateSequence seq = rectGeom.getExteriorRing().getCoordinateSequence();
+    setXY(seq, 0, r.getMinX(), r.getMinY());
+    setXY(seq, 1, r.getMinX(), r.getMaxY());
+    setXY(seq, 2, r.getMaxX(), r.getMaxY());
+    setXY(seq, 3, r.getMaxX(), r.getMinY());
+    setXY(seq, 4, r.getMinX(), r.getMinY());
+    rectGeom.geometryChanged();
+    return rectGeom;
+  }
+
+  private static void setXY(CoordinateSequence seq, int i, double x, double y) {
+    seq.setOrdinate(i, CoordinateSequence.X, x);
+    seq.setOrdinate(i, CoordinateSequence.Y, y);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape.jts;
+
+import com.vividsolutions.jts.algorithm.RobustLineIntersector;
+import com.vividsolutions.jts.algorithm.locate.IndexedPointInAreaLocator;
+import com.vividsolutions.jts.algorithm.locate.PointOnGeometryLocator;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryComponentFilter;
+import com.vividsolutions.jts.geom.Lineal;
+import com.vividsolutions.jts.geom.Polygonal;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.geom.prep.PreparedLineString;
+import com.vividsolutions.jts.geom.prep.PreparedPolygon;
+import com.vividsolutions.jts.index.SpatialIndex;
+import com.vividsolutions.jts.index.chain.MonotoneChain;
+import com.vividsolutions.jts.index.chain.MonotoneChainBuilder;
+import com.vividsolutions.jts.index.chain.MonotoneChainOverlapAction;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.noding.FastSegmentSetIntersectionFinder;
+import com.vividsolutions.jts.noding.MCIndexSegmentSetMutualIntersector;
+import com.vividsolutions.jts.noding.SegmentIntersectionDetector;
+import com.vividsolutions.jts.noding.SegmentString;
+import com.vividsolutions.jts.noding.SegmentStringUtil;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prepares a JTS {@link PreparedGeometry} that many threads may relate concurrently; see {@link
+ * JtsGeometry#index()}. JTS (as of 1.13) PreparedGeometry isn't thread-safe when relating to a
+ * non-point: its segment intersection finder modifies itself while searching, the finder's
+ * LineIntersector is static and thus shared by all prepared geometries, and its indexes are built
+ * lazily without safe publication. Here the segment index and the point-in-polygon index are built
+ * up front and then only read, and each search has its own intersection detector.
+ */
+final class ThreadSafePreparedGeometryFactory {
+
+  private ThreadSafePreparedGeometryFactory() {
+  }
+
+  /**
+   * Like {@link PreparedGeometryFactory#prepare(Geometry)}. The result must be published safely,
+   * e.g. with a volatile field; then it may be used by any number of threads.
+   */
+  static PreparedGeometry prepare(Geometry geom) {
+    //Geometry caches its envelope lazily; compute it now so it's published with the result
+    geom.apply(new GeometryComponentFilter() {
+      @Override
+      public void filter(Geometry component) {
+        component.getEnvelopeInternal();
+      }
+    });
+    if (geom instanceof Polygonal)
+      return new ThreadSafePreparedPolygon((Polygonal) geom);
+    if (geom instanceof Lineal)
+      return new ThreadSafePreparedLineString((Lineal) geom);
+    return PreparedGeometryFactory.prepare(geom);//the others don't use a segment intersection finder
+  }
+
+  private static class ThreadSafePreparedPolygon extends PreparedPolygon {
+    private final FastSegmentSetIntersectionFinder finder;
+    private final PointOnGeometryLocator pointLocator;
+
+    ThreadSafePreparedPolygon(Polygonal poly) {
+      super(poly);
+      this.finder = new ThreadSafeIntersectionFinder(SegmentStringUtil.extractSegmentStrings(getGeometry()));
+      this.pointLocator = new IndexedPointInAreaLocator(getGeometry());
+      //the first query builds its index
+      pointLocator.locate(new Coordinate(0, 0));
+    }
+
+    @Override
+    public FastSegmentSetIntersectionFinder getIntersectionFinder() {
+      return finder;
+    }
+
+    @Override
+    public PointOnGeometryLocator getPointLocator() {
+      return pointLocator;
+    }
+  }
+
+  private static class ThreadSafePreparedLineString extends PreparedLineString {
+    private final FastSegmentSetIntersectionFinder finder;
+
+    ThreadSafePreparedLineString(Lineal line) {
+      super(line);
+      this.finder = new ThreadSafeIntersectionFinder(SegmentStringUtil.extractSegmentStrings(getGeometry()));
+    }
+
+    @Override
+    public FastSegmentSetIntersectionFinder getIntersectionFinder() {
+      return finder;
+    }
+  }
+
+  /**
+   * Searches the index of monotone chains of the base segments that its superclass builds, like
+   * {@link MCIndexSegmentSetMutualIntersector} does, but keeps the state of a search local to it.
+   */
+  @SuppressWarnings("rawtypes")
+  private static class ThreadSafeIntersectionFinder extends FastSegmentSetIntersectionFinder {
+    private final SpatialIndex index;
+
+    ThreadSafeIntersectionFinder(Collection baseSegStrings) {
+      super(baseSegStrings);
+      this.index = ((MCIndexSegmentSetMutualIntersector) getSegmentSetIntersector()).getIndex();
+      ((STRtree) index).build();//otherwise the first query builds it
+    }
+
+    @Override
+    public boolean intersects(Collection segStrings) {
+      return intersects(segStrings, new SegmentIntersectionDetector(new RobustLineIntersector()));
+    }
+
+    @Override
+    public boolean intersects(Collection segStrings, final SegmentIntersectionDetector intDetector) {
+      MonotoneChainOverlapAction overlapAction = new MonotoneChainOverlapAction() {
+        @Override
+        public void overlap(MonotoneChain mc1, int start1, MonotoneChain mc2, int start2) {
+          intDetector.processIntersections(
+              (SegmentString) mc1.getContext(), start1, (SegmentString) mc2.getContext(), start2);
+        }
+      };
+      for (Object segString : segStrings) {
+        SegmentString ss = (SegmentString) segString;
+        for (Object queryChain : MonotoneChainBuilder.getChains(ss.getCoordinates(), ss)) {
+          MonotoneChain mc = (MonotoneChain) queryChain;
+          List overlapChains = index.query(mc.getEnvelope());
+          for (Object testChain : overlapChains) {
+            mc.computeOverlaps((MonotoneChain) testChain, overlapAction);
+            if (intDetector.isDone())
+              return intDetector.hasIntersection();
+          }
+        }
+      }
+      return intDetector.hasIntersection();
+    }
+  }
+}
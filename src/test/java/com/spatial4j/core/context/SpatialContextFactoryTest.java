@@ -21,9 +21,11 @@ import com.spatial4j.core.context.jts.JtsSpatialContext;
 import com.spatial4j.core.context.jts.JtsSpatialContextFactory;
 import com.spatial4j.core.distance.CartesianDistCalc;
 import com.spatial4j.core.distance.GeodesicSphereDistCalc;
+import com.spatial4j.core.distance.NVectorDistCalc;
 import com.spatial4j.core.io.ShapeIO;
 import com.spatial4j.core.context.jts.DatelineRule;
 import com.spatial4j.core.io.jts.JtsWKTReader;
+import com.spatial4j.core.shape.impl.NVectorPoint;
 import com.spatial4j.core.shape.impl.RectangleImpl;
 
 import org.junit.After;
@@ -81,6 +83,14 @@ public class SpatialContextFactoryTest {
     assertTrue(ctx.isGeo());
     assertEquals(new GeodesicSphereDistCalc.LawOfCosines(),
         ctx.getDistCalc());
+
+    ctx = call("distCalculator","equirectangular");
+    assertEquals(new GeodesicSphereDistCalc.Equirectangular(),
+        ctx.getDistCalc());
+
+    ctx = call("distCalculator","nVector");
+    assertEquals(new NVectorDistCalc(), ctx.getDistCalc());
+    assertTrue(ctx.makePoint(10, 20) instanceof NVectorPoint);
   }
 
   @Test
@@ -93,8 +103,11 @@ public class SpatialContextFactoryTest {
         "wktShapeParserClass", CustomWktShapeParser.class.getName(),
         "datelineRule", "ccwRect",
         "validationRule", "repairConvexHull",
-        "autoIndex", "true");
+        "autoIndex", "true",
+        "autoIndexRelateCount", "10");
     assertTrue(ctx.isNormWrapLongitude());
+    assertEquals(10, ctx.getAutoIndexRelateCount());
+    assertEquals(0, ctx.getAutoIndexPointCount());
     assertEquals(2.0, ctx.getGeometryFactory().getPrecisionModel().getScale(), 0.0);
     assertTrue(CustomWktShapeParser.once);//cheap way to test it was created
     assertEquals(DatelineRule.ccwRect,
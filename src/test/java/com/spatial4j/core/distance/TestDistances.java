@@ -23,10 +23,13 @@ import com.spatial4j.core.shape.Circle;
 import com.spatial4j.core.shape.Point;
 import com.spatial4j.core.shape.Rectangle;
 import com.spatial4j.core.shape.SpatialRelation;
+import com.spatial4j.core.shape.impl.NVectorPoint;
 import com.spatial4j.core.shape.impl.PointImpl;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static com.spatial4j.core.distance.DistanceUtils.DEG_TO_KM;
 import static com.spatial4j.core.distance.DistanceUtils.KM_TO_DEG;
 
@@ -83,6 +86,122 @@ public class TestDistances extends RandomizedTest {
     }
   }
 
+  @Test
+  public void testEquirectangularAgainstHaversine() {
+    DistanceCalculator haversine = new GeodesicSphereDistCalc.Haversine();
+    final double maxApproxDEG = randomBoolean() ? GeodesicSphereDistCalc.Equirectangular.DEFAULT_MAX_APPROX_DEG
+        : randomDouble() * 5;
+    DistanceCalculator equirect = new GeodesicSphereDistCalc.Equirectangular(maxApproxDEG);
+    final double maxApproxRAD = DistanceUtils.toRadians(maxApproxDEG);
+    final double maxRelError = maxApproxRAD * maxApproxRAD / 16;
+
+    final int TRIES = 100000 * (int)multiplier();
+    for (int i = 0; i < TRIES; i++) {
+      Point p1 = randomGeoPoint();
+      Point p2 = randomBoolean() ? randomGeoPointFrom(p1)
+          : ctx.getDistCalc().pointOnBearing(p1, randomDouble() * maxApproxDEG * 2, randomDouble() * 360, ctx, null);
+      double distH = haversine.distance(p1, p2);
+      double distE = equirect.distance(p1, p2);
+      if (distH <= maxApproxDEG * (1 + maxRelError)) {
+        assertEquals(p1 + " " + p2, distH, distE, distH * maxRelError + 1e-12);
+      } else {
+        assertEquals(p1 + " " + p2, distH, distE, 0);
+      }
+    }
+  }
+
+  @Test
+  public void testNVectorAgainstVincenty() {
+    DistanceCalculator vincenty = new GeodesicSphereDistCalc.Vincenty();
+    NVectorDistCalc nVector = new NVectorDistCalc();
+    final int TRIES = 10000 * (int)multiplier();
+    for (int i = 0; i < TRIES; i++) {
+      Point p1 = randomGeoPoint();
+      Point p2 = randomGeoPointFrom(p1);
+      double distV = vincenty.distance(p1, p2);
+      assertEquals(distV, nVector.distance(p1, p2), 1e-9);
+      NVectorPoint v1 = new NVectorPoint(p1.getX(), p1.getY(), ctx);
+      NVectorPoint v2 = new NVectorPoint(p2.getX(), p2.getY(), ctx);
+      assertEquals(distV, nVector.distance(v1, v2), 1e-9);
+      double dist = randomBoolean() ? randomDouble() * 180 : distV * (1 + (randomDouble() - 0.5) * 1e-3);
+      if (Math.abs(distV - dist) > 1e-9)//not on the edge
+        assertEquals(p1 + " " + p2, distV <= dist, nVector.within(v1, v2, dist));
+    }
+  }
+
+  @Test
+  public void testBatchDistances() {
+    BatchDistanceCalculator[] calcs = {new CartesianDistCalc(), new CartesianDistCalc(true),
+        new GeodesicSphereDistCalc.Haversine(), new GeodesicSphereDistCalc.LawOfCosines(),
+        new GeodesicSphereDistCalc.Vincenty(), new GeodesicSphereDistCalc.Equirectangular(),
+        new NVectorDistCalc()};
+    for (int iter = 0; iter < atLeast(20); iter++) {
+      BatchDistanceCalculator calc = randomFrom(calcs);
+      Point from = randomGeoPoint();
+      int n = randomIntBetween(0, 300);
+      double[] xs = new double[n];
+      double[] ys = new double[n];
+      for (int i = 0; i < n; i++) {
+        Point p = randomBoolean() ? randomGeoPointFrom(from) : randomGeoPoint();
+        if (randomInt(10) == 0)
+          p = from;
+        xs[i] = p.getX();
+        ys[i] = p.getY();
+      }
+      int off = randomIntBetween(0, n);
+      int len = randomIntBetween(0, n - off);
+      double[] out = new double[n];
+      Arrays.fill(out, -1);
+      calc.distances(from, xs, ys, off, len, out);
+      for (int i = 0; i < n; i++) {
+        if (i < off || i >= off + len)
+          assertEquals(-1, out[i], 0);
+        else
+          assertEquals(calc + " " + i, calc.distance(from, xs[i], ys[i]), out[i], 0);
+      }
+
+      double dist = randomBoolean() ? randomDouble() * 180 : randomDouble();
+      long[] bits = new long[(n + 63) / 64];
+      Arrays.fill(bits, -1L);
+      calc.withinMask(from, xs, ys, dist, bits);
+      for (int i = 0; i < bits.length * 64; i++) {
+        boolean bit = (bits[i >> 6] & (1L << i)) != 0;
+        if (i >= n) {
+          assertFalse(bit);
+        } else if (Math.abs(calc.distance(from, xs[i], ys[i]) - dist) > 1e-9) {//not on the edge
+          assertEquals(calc + " " + i, calc.within(from, xs[i], ys[i], dist), bit);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testAnchor() {
+    BatchDistanceCalculator[] calcs = {new CartesianDistCalc(), new CartesianDistCalc(true),
+        new GeodesicSphereDistCalc.Haversine(), new GeodesicSphereDistCalc.LawOfCosines(),
+        new GeodesicSphereDistCalc.Vincenty(), new GeodesicSphereDistCalc.Equirectangular(),
+        new NVectorDistCalc()};
+    for (int iter = 0; iter < atLeast(20); iter++) {
+      BatchDistanceCalculator calc = randomFrom(calcs);
+      Point from = randomGeoPoint();
+      DistanceAnchor anchor = calc.anchor(from);
+      assertSame(from, anchor.getOrigin());
+      double dist = randomBoolean() ? randomDouble() * 180 : randomDouble();
+      for (int i = 0; i < 100; i++) {
+        Point p = randomBoolean() ? randomGeoPointFrom(from) : randomGeoPoint();
+        if (randomInt(10) == 0)
+          p = from;
+        assertEquals(calc.toString(), calc.distance(from, p), anchor.distanceTo(p.getX(), p.getY()), 0);
+        if (randomInt(10) == 0)
+          dist = randomBoolean() ? randomDouble() * 180 : randomDouble();
+        if (Math.abs(calc.distance(from, p) - dist) > 1e-9)//not on the edge
+          assertEquals(calc + " " + p, calc.within(from, p.getX(), p.getY(), dist),
+              anchor.within(p.getX(), p.getY(), dist));
+      }
+      assertTrue(anchor.within(from.getX(), from.getY(), 0));
+    }
+  }
+
   private Point randomGeoPoint() {
     //not uniformly distributed but that's ok
     return ctx.makePoint(randomDouble()*360 + -180, randomDouble()*180 + -90);
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.index;
+
+import com.spatial4j.core.SpatialPredicate;
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.context.SpatialContextFactory;
+import com.spatial4j.core.exception.UnsupportedSpatialPredicate;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.RandomizedShapeTest;
+import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.impl.RectangleImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+public class SpatialJoinTest extends RandomizedShapeTest {
+
+  @Test
+  public void testGeoWithinDistance() throws InterruptedException {
+    ctx = SpatialContext.GEO;
+    doTestWithinDistance();
+  }
+
+  @Test
+  public void testFlatWithinDistance() throws InterruptedException {
+    ctx = new SpatialContextFactory()
+      {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+    doTestWithinDistance();
+  }
+
+  private void doTestWithinDistance() throws InterruptedException {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int iter = 0; iter < atLeast(10); iter++) {
+        List<Shape> left = randomShapes(randomIntBetween(0, 400));
+        List<Shape> right = randomShapes(randomIntBetween(0, 1500));
+        double dist = randomDouble() * (randomBoolean() ? 2 : (ctx.isGeo() ? 20 : 10));
+
+        Set<String> expected = new HashSet<String>();
+        for (int l = 0; l < left.size(); l++) {
+          for (int r = 0; r < right.size(); r++) {
+            if (withinDistance(left.get(l), right.get(r), dist))
+              expected.add(l + "," + r);
+          }
+        }
+        for (ForkJoinPool p : new ForkJoinPool[]{null, pool}) {
+          List<String> actual = Collections.synchronizedList(new ArrayList<String>());
+          SpatialJoin.withinDistance(left, right, dist, ctx, p, pairCollector(actual));
+          assertEquals("dist=" + dist, expected.size(), actual.size());//no duplicates
+          assertEquals(expected, new HashSet<String>(actual));
+        }
+      }
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  @Test
+  public void testDatelineTouching() {
+    ctx = SpatialContext.GEO;
+    //boxes touching the dateline on opposite sides
+    List<Shape> left = new ArrayList<Shape>();
+    left.add(ctx.makeRectangle(170, 180, -5, 5));
+    left.add(ctx.makePoint(-180, 10));
+    List<Shape> right = new ArrayList<Shape>();
+    right.add(ctx.makePoint(-180, 0));
+    right.add(ctx.makeRectangle(170, 180, 5, 15));
+    List<String> actual = new ArrayList<String>();
+    SpatialJoin.withinDistance(left, right, 0, ctx, null, pairCollector(actual));
+    Collections.sort(actual);
+    assertEquals("[0,0, 0,1, 1,1]", actual.toString());
+  }
+
+  @Test
+  public void testGeoJoinByPredicate() throws InterruptedException {
+    ctx = SpatialContext.GEO;
+    doTestJoinByPredicate();
+  }
+
+  @Test
+  public void testFlatJoinByPredicate() throws InterruptedException {
+    ctx = new SpatialContextFactory()
+      {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+    doTestJoinByPredicate();
+  }
+
+  private void doTestJoinByPredicate() throws InterruptedException {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int iter = 0; iter < atLeast(10); iter++) {
+        List<Shape> left = randomShapes(randomIntBetween(0, 1500));
+        List<Shape> right = new ArrayList<Shape>();
+        for (int i = randomIntBetween(0, 100); i > 0; i--)
+          right.add(randomBoolean() ? randomRectangle((Point) null) : randomPoint());
+        SpatialPredicate predicate = randomFrom(Arrays.asList(SpatialPredicate.Intersects,
+            SpatialPredicate.IsWithin, SpatialPredicate.Contains, SpatialPredicate.BBoxIntersects,
+            SpatialPredicate.BBoxWithin));
+
+        Set<String> expected = new HashSet<String>();
+        for (int l = 0; l < left.size(); l++) {
+          for (int r = 0; r < right.size(); r++) {
+            if (predicate.evaluate(left.get(l), right.get(r)))
+              expected.add(l + "," + r);
+          }
+        }
+        for (ForkJoinPool p : new ForkJoinPool[]{null, pool}) {
+          List<String> actual = Collections.synchronizedList(new ArrayList<String>());
+          SpatialJoin.join(left, right, predicate, ctx, p, pairCollector(actual));
+          assertEquals(predicate.toString(), expected.size(), actual.size());//no duplicates
+          assertEquals(expected, new HashSet<String>(actual));
+        }
+      }
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  @Test(expected = UnsupportedSpatialPredicate.class)
+  public void testJoinDisjointUnsupported() {
+    ctx = SpatialContext.GEO;
+    SpatialJoin.join(Arrays.asList(randomPoint()), Arrays.asList(randomPoint()),
+        SpatialPredicate.IsDisjointTo, ctx, null, pairCollector(new ArrayList<String>()));
+  }
+
+  private boolean withinDistance(Shape l, Shape r, double dist) {
+    if (l instanceof Point) {
+      if (r instanceof Point)
+        return ctx.getDistCalc().distance((Point) l, (Point) r) <= dist;
+      return ctx.makeCircle((Point) l, dist).relate(r).intersects();
+    }
+    if (r instanceof Point)
+      return ctx.makeCircle((Point) r, dist).relate(l).intersects();
+    return l.getBuffered(dist, ctx).relate(r).intersects();
+  }
+
+  private List<Shape> randomShapes(int count) {
+    List<Shape> shapes = new ArrayList<Shape>(count);
+    for (int i = 0; i < count; i++) {
+      if (randomInt(9) == 0) {
+        if (ctx.isGeo()) {
+          shapes.add(randomRectangle((Point) null));
+        } else {//buffering it mustn't go past the world bounds
+          Point corner = randomPointIn(ctx.makeRectangle(-85, 80, -35, 30));
+          shapes.add(ctx.makeRectangle(corner.getX(), corner.getX() + randomDouble() * 5,
+              corner.getY(), corner.getY() + randomDouble() * 5));
+        }
+      } else if (ctx.isGeo() && randomInt(9) == 0) {//near the dateline
+        shapes.add(ctx.makePoint(randomBoolean() ? 180 - randomDouble() * 3 : -180 + randomDouble() * 3,
+            randomDouble() * 10));
+      } else if (ctx.isGeo()) {
+        shapes.add(randomPoint());
+      } else {//a circle around it mustn't go past the world bounds
+        shapes.add(randomPointIn(ctx.makeRectangle(-85, 85, -35, 35)));
+      }
+    }
+    return shapes;
+  }
+
+  static SpatialJoin.PairConsumer pairCollector(final List<String> pairs) {
+    return new SpatialJoin.PairConsumer() {
+      @Override
+      public void accept(int leftIndex, int rightIndex) {
+        pairs.add(leftIndex + "," + rightIndex);
+      }
+    };
+  }
+}
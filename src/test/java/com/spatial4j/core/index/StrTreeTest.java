@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.index;
+
+import com.spatial4j.core.SpatialPredicate;
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.context.SpatialContextFactory;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.RandomizedShapeTest;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.impl.RectangleImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class StrTreeTest extends RandomizedShapeTest {
+
+  @Test
+  public void testGeoSearchMatchesBruteForce() {
+    ctx = SpatialContext.GEO;
+    doTestSearchMatchesBruteForce();
+  }
+
+  @Test
+  public void testFlatSearchMatchesBruteForce() {
+    ctx = new SpatialContextFactory()
+      {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+    doTestSearchMatchesBruteForce();
+  }
+
+  private void doTestSearchMatchesBruteForce() {
+    for (int iter = 0; iter < atLeast(20); iter++) {
+      List<Shape> shapes = new ArrayList<Shape>();
+      int count = randomIntBetween(0, 300);
+      for (int i = 0; i < count; i++) {
+        shapes.add(randomShape());
+      }
+      StrTree<Shape> tree = new StrTree<Shape>(shapes, randomIntBetween(2, 20), randomBoolean(), ctx);
+      assertEquals(count, tree.size());
+      for (int q = 0; q < 20; q++) {
+        Shape query = randomShape();
+        for (SpatialPredicate predicate : Arrays.asList(SpatialPredicate.Intersects,
+            SpatialPredicate.IsWithin, SpatialPredicate.Contains, SpatialPredicate.IsDisjointTo,
+            SpatialPredicate.BBoxIntersects)) {
+          List<Shape> expected = new ArrayList<Shape>();
+          for (Shape shape : shapes) {
+            if (predicate.evaluate(shape, query))
+              expected.add(shape);
+          }
+          List<Shape> actual = tree.search(query, predicate);
+          assertEquals(predicate + " " + query, expected.size(), actual.size());
+          assertEquals(predicate + " " + query, new HashSet<Shape>(expected), new HashSet<Shape>(actual));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testGeoKnnMatchesBruteForce() {
+    ctx = SpatialContext.GEO;
+    doTestKnnMatchesBruteForce();
+  }
+
+  @Test
+  public void testFlatKnnMatchesBruteForce() {
+    ctx = new SpatialContextFactory()
+      {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+    doTestKnnMatchesBruteForce();
+  }
+
+  private void doTestKnnMatchesBruteForce() {
+    NearestNeighbors reuse = new NearestNeighbors(1);
+    for (int iter = 0; iter < atLeast(20); iter++) {
+      List<Shape> shapes = new ArrayList<Shape>();
+      int count = randomIntBetween(0, 300);
+      for (int i = 0; i < count; i++) {
+        //mostly points, which is the typical use
+        shapes.add(randomInt(3) == 0 ? randomShape() : randomPoint());
+      }
+      StrTree<Shape> tree = new StrTree<Shape>(shapes, randomIntBetween(2, 20), randomBoolean(), ctx);
+      for (int q = 0; q < 20; q++) {
+        Point origin;
+        if (ctx.isGeo() && randomBoolean()) {//near the dateline or a pole
+          origin = ctx.makePoint(randomBoolean() ? 180 - randomDouble() : -180 + randomDouble(),
+              randomBoolean() ? randomInt(180) - 90 : (randomBoolean() ? 89 : -89) + randomDouble());
+        } else {
+          origin = randomPoint();
+        }
+        int k = randomIntBetween(1, 20);
+        double maxDist = randomBoolean() ? Double.POSITIVE_INFINITY : randomDouble() * 40;
+
+        List<Double> expected = new ArrayList<Double>();
+        for (Shape shape : shapes) {
+          Point point = shape instanceof Point ? (Point) shape : shape.getCenter();
+          double dist = ctx.getDistCalc().distance(origin, point);
+          if (dist <= maxDist)
+            expected.add(dist);
+        }
+        Collections.sort(expected);
+        expected = expected.subList(0, Math.min(k, expected.size()));
+
+        NearestNeighbors results = randomBoolean() ? tree.knn(origin, k, maxDist) : tree.knn(origin, k, maxDist, reuse);
+        List<Double> actual = new ArrayList<Double>();
+        Set<Integer> ids = new HashSet<Integer>();
+        for (int i = 0; i < results.size(); i++) {
+          actual.add(results.getDistance(i));
+          assertTrue(ids.add(results.getId(i)));
+          Shape shape = shapes.get(results.getId(i));
+          Point point = shape instanceof Point ? (Point) shape : shape.getCenter();
+          assertEquals(results.getDistance(i), ctx.getDistCalc().distance(origin, point), 0);
+        }
+        assertEquals(origin + " k=" + k + " maxDist=" + maxDist, expected, actual);
+      }
+    }
+  }
+
+  private Shape randomShape() {
+    switch (randomInt(2)) {
+      case 0: return randomPoint();
+      case 1: return randomRectangle((Point) null);
+      default: {
+        if (ctx.isGeo())
+          return ctx.makeCircle(randomPoint(), randomDouble() * 30);
+        //keep the circle's box within the world bounds
+        Point center = randomPointIn(ctx.makeRectangle(-90, 90, -40, 40));
+        return ctx.makeCircle(center, randomDouble() * 10);
+      }
+    }
+  }
+
+  @Test
+  public void testDatelineAdjacency() {
+    ctx = SpatialContext.GEO;
+    Rectangle east = ctx.makeRectangle(170, 180, -10, 10);
+    Rectangle west = ctx.makeRectangle(-180, -170, -10, 10);
+    Rectangle crossing = ctx.makeRectangle(175, -175, -5, 5);
+    List<Rectangle> shapes = Arrays.asList(east, west, crossing);
+    StrTree<Rectangle> tree = new StrTree<Rectangle>(shapes, 2, ctx);
+
+    //+180 and -180 are the same meridian
+    assertEquals(new HashSet<Rectangle>(shapes),
+        new HashSet<Rectangle>(tree.search(ctx.makeRectangle(-180, -179, 0, 1), SpatialPredicate.Intersects)));
+    assertEquals(new HashSet<Rectangle>(Arrays.asList(west, crossing)),
+        new HashSet<Rectangle>(tree.search(ctx.makePoint(-176, 0), SpatialPredicate.Intersects)));
+    //the crossing rectangle is indexed as 2 pieces but found once
+    assertEquals(3, tree.search(ctx.makeRectangle(160, -160, -90, 90), SpatialPredicate.IsWithin).size());
+    assertEquals(Collections.singletonList(east),
+        tree.search(ctx.makeRectangle(0, 172, 0, 1), SpatialPredicate.Intersects));
+  }
+
+  @Test
+  public void testVisitorStops() {
+    ctx = SpatialContext.GEO;
+    List<Point> points = new ArrayList<Point>();
+    for (int i = 0; i < 100; i++)
+      points.add(ctx.makePoint(i, 0));
+    StrTree<Point> tree = new StrTree<Point>(points, ctx);
+    final int[] visited = {0};
+    boolean completed = tree.visitCandidates(ctx.makeRectangle(-180, 180, -1, 1), new StrTree.Visitor<Point>() {
+      @Override
+      public boolean visit(int index, Point shape) {
+        return ++visited[0] < 5;
+      }
+    });
+    assertFalse(completed);
+    assertEquals(5, visited[0]);
+  }
+}
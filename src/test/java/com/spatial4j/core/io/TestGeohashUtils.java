@@ -18,10 +18,26 @@
 package com.spatial4j.core.io;
 
 import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.distance.DistanceUtils;
 import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+import com.spatial4j.core.shape.SpatialRelation;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Tests for {@link GeohashUtils}
@@ -121,4 +137,253 @@ public class TestGeohashUtils {
 
     assertEquals(GeohashUtils.MAX_PRECISION, GeohashUtils.lookupHashLenForWidthHeight(10e-20,10e-20));
   }
+
+  @Test
+  public void testLongEncoding() {
+    Random random = new Random(42);
+    double cellWidth = 360.0 / (1L << 30), cellHeight = 180.0 / (1L << 30);
+    for (int i = 0; i < 10000; i++) {
+      double lat, lon;
+      switch (i % 4) {
+        case 0://on an exact cell edge, which the bisection puts in the lower cell
+          lat = -90 + random.nextInt(1 << 30) * cellHeight;
+          lon = -180 + random.nextInt(1 << 30) * cellWidth;
+          break;
+        case 1:
+          lat = random.nextInt(181) - 90;
+          lon = random.nextInt(361) - 180;
+          break;
+        default:
+          lat = random.nextDouble() * 180 - 90;
+          lon = random.nextDouble() * 360 - 180;
+      }
+      //the bisection loop is still used beyond MAX_LONG_PRECISION
+      String expected = GeohashUtils.encodeLatLon(lat, lon, GeohashUtils.MAX_PRECISION);
+      int precision = 1 + random.nextInt(GeohashUtils.MAX_LONG_PRECISION);
+      String geohash = expected.substring(0, precision);
+      long hash = GeohashUtils.encodeLatLonAsLong(lat, lon, precision);
+      assertEquals(lat + "," + lon, geohash, GeohashUtils.longToGeohash(hash, precision));
+      assertEquals(geohash, GeohashUtils.encodeLatLon(lat, lon, precision));
+      assertEquals(hash, GeohashUtils.geohashToLong(geohash));
+      assertEquals(hash, GeohashUtils.geohashToLong(geohash.toUpperCase(Locale.ROOT)));
+      assertEquals(GeohashUtils.decodeBoundary(geohash, ctx),
+          GeohashUtils.decodeBoundary(hash, precision, ctx, null));
+    }
+    assertEquals(0L, GeohashUtils.encodeLatLonAsLong(-90, -180, 12));
+    assertEquals((1L << 60) - 1, GeohashUtils.encodeLatLonAsLong(90, 180, 12));
+    //sorted like the strings
+    assertTrue(GeohashUtils.geohashToLong("ezs42") < GeohashUtils.geohashToLong("u4pru"));
+
+    try {
+      GeohashUtils.geohashToLong("ezs4a");
+      fail();
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+    try {
+      GeohashUtils.encodeLatLonAsLong(0, 0, GeohashUtils.MAX_LONG_PRECISION + 1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      //expected
+    }
+  }
+
+  @Test
+  public void testLongEncodingBatch() {
+    Random random = new Random(7);
+    int size = 100000;
+    double[] lats = new double[size];
+    double[] lons = new double[size];
+    for (int i = 0; i < size; i++) {
+      lats[i] = random.nextDouble() * 180 - 90;
+      lons[i] = random.nextDouble() * 360 - 180;
+    }
+    long[] serial = GeohashUtils.encodeLatLonAsLong(lats, lons, 9, null, null);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    long[] parallel;
+    try {
+      parallel = GeohashUtils.encodeLatLonAsLong(lats, lons, 9, new long[size], pool);
+    } finally {
+      pool.shutdown();
+    }
+    assertArrayEquals(serial, parallel);
+    for (int i = 0; i < size; i += 97)
+      assertEquals(GeohashUtils.encodeLatLonAsLong(lats[i], lons[i], 9), serial[i]);
+  }
+
+  @Test
+  public void testNeighbors() {
+    Random random = new Random(3);
+    for (int i = 0; i < 2000; i++) {
+      int precision = 1 + random.nextInt(GeohashUtils.MAX_LONG_PRECISION + 3);
+      double lat = i % 10 == 0 ? (random.nextBoolean() ? 89.9999 : -89.9999) : random.nextDouble() * 180 - 90;
+      double lon = i % 10 == 1 ? (random.nextBoolean() ? 179.9999 : -179.9999) : random.nextDouble() * 360 - 180;
+      String geohash = GeohashUtils.encodeLatLon(lat, lon, precision);
+      Rectangle cell = GeohashUtils.decodeBoundary(geohash, ctx);
+      String[] neighbors = GeohashUtils.neighbors(geohash);
+      if (precision <= GeohashUtils.MAX_LONG_PRECISION) {
+        long[] longNeighbors = GeohashUtils.neighbors(GeohashUtils.geohashToLong(geohash), precision);
+        for (int n = 0; n < 8; n++)
+          assertEquals(neighbors[n], GeohashUtils.longToGeohash(longNeighbors[n], precision));
+      }
+      //N, NE, E, SE, S, SW, W, NW
+      int[] dxs = {0, 1, 1, 1, 0, -1, -1, -1};
+      int[] dys = {1, 1, 0, -1, -1, -1, 0, 1};
+      for (int n = 0; n < 8; n++) {
+        Rectangle neighbor = GeohashUtils.decodeBoundary(neighbors[n], ctx);
+        assertEquals(precision, neighbors[n].length());
+        double expectedMinX = cell.getMinX() + dxs[n] * cell.getWidth();
+        double expectedMinY = cell.getMinY() + dys[n] * cell.getHeight();
+        if (expectedMinY >= 90 || expectedMinY < -90) {//across the pole
+          expectedMinY = cell.getMinY();
+          expectedMinX += 180;
+        }
+        assertEquals(geohash + " " + n, 0, (expectedMinX - neighbor.getMinX()) % 360, 0);
+        assertEquals(geohash + " " + n, expectedMinY, neighbor.getMinY(), 0);
+      }
+    }
+    String[] corner = GeohashUtils.neighbors("zzzz");//north-east corner of the world
+    assertEquals("gzzz", corner[0]);//over the pole
+    assertEquals("bpbp", corner[2]);//over the dateline
+  }
+
+  @Test
+  public void testCellsWithinDistance() {
+    Point[] centers = {ctx.makePoint(10, 45), ctx.makePoint(179, -20), ctx.makePoint(-60, 88),
+        ctx.makePoint(0, -89)};
+    for (Point center : centers) {
+      for (double dist : new double[]{0, 1, 7.5, 30}) {
+        int precision = dist < 5 ? 3 : 2;
+        Shape circle = ctx.makeCircle(center, dist);
+        List<String> expected = new ArrayList<String>();
+        for (String cell : allGeohashes(precision)) {
+          if (circle.relate(GeohashUtils.decodeBoundary(cell, ctx)) != SpatialRelation.DISJOINT)
+            expected.add(cell);
+        }
+        assertEquals(center + " " + dist, expected,
+            GeohashUtils.geohashesWithinDistance(center, dist, precision, ctx));
+        assertEquals(expected.size(), GeohashUtils.cellsWithinDistance(center, dist, precision, ctx).length);
+      }
+    }
+  }
+
+  private List<String> allGeohashes(int precision) {
+    List<String> cells = Collections.singletonList("");
+    for (int level = 0; level < precision; level++) {
+      List<String> next = new ArrayList<String>();
+      for (String cell : cells)
+        next.addAll(Arrays.asList(GeohashUtils.getSubGeohashes(cell)));
+      cells = next;
+    }
+    return cells;//sorted
+  }
+
+  @Test
+  public void testCover() {
+    Shape[] shapes = {ctx.makeCircle(10, 45, 5), ctx.makeRectangle(170, -170, -10, 10),
+        ctx.makeCircle(0, 89, 3), ctx.makePoint(-5.6, 42.6)};
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (Shape shape : shapes) {
+        for (int maxCells : new int[]{1, 40, 500}) {
+          List<String> cells = GeohashUtils.cover(shape, 6, maxCells);
+          assertTrue(cells.size() <= maxCells);
+          assertCovers(shape, cells, 6);
+
+          List<String> inside = new ArrayList<String>();
+          List<String> boundary = new ArrayList<String>();
+          GeohashUtils.cover(shape, 6, maxCells, pool, inside, boundary);
+          for (String cell : inside)
+            assertEquals(SpatialRelation.CONTAINS, shape.relate(GeohashUtils.decodeBoundary(cell, ctx)));
+          List<String> all = new ArrayList<String>(inside);
+          all.addAll(boundary);
+          Collections.sort(all);
+          assertEquals(cells, all);//parallel is the same
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(Arrays.asList(""), GeohashUtils.cover(ctx.makeRectangle(-10, 10, -10, 10), 3, 1));
+    assertEquals(Arrays.asList("ezs42e"), GeohashUtils.cover(ctx.makePoint(-5.6, 42.6), 6, 1000));
+  }
+
+  @Test
+  public void testCoverRanges() {
+    Shape[] shapes = {ctx.makeCircle(10, 45, 5), ctx.makeRectangle(170, -170, -10, 10),
+        ctx.makeCircle(0, 89, 3), ctx.makePoint(-5.6, 42.6)};
+    for (Shape shape : shapes) {
+      List<String> cells = GeohashUtils.cover(shape, 5, 300);
+      long[] all = GeohashUtils.coverRanges(shape, 5, 300, Integer.MAX_VALUE);
+      assertTrue(all.length / 2 <= cells.size());
+      long size = 0;
+      for (int i = 0; i < all.length; i += 2)
+        size += all[i + 1] - all[i];
+      long cellsSize = 0;
+      for (String cell : cells)
+        cellsSize += 1L << (5 * (5 - cell.length()));
+      assertEquals(cellsSize, size);//coalescing adds no false positives
+
+      for (int maxRanges : new int[]{1, 2, 5, 1000}) {
+        long[] ranges = GeohashUtils.coverRanges(shape, 5, 300, maxRanges);
+        assertTrue(ranges.length / 2 <= maxRanges);
+        for (int i = 1; i < ranges.length; i++)
+          assertTrue(ranges[i - 1] <= ranges[i]);
+        //every key of the cover is in a range
+        for (int i = 0; i < all.length; i += 2)
+          assertTrue(inRanges(ranges, all[i]) && inRanges(ranges, all[i + 1] - 1));
+
+        List<String[]> geohashRanges = GeohashUtils.coverGeohashRanges(shape, 5, 300, maxRanges);
+        assertEquals(ranges.length / 2, geohashRanges.size());
+        for (int i = 0; i < geohashRanges.size(); i++) {
+          String[] range = geohashRanges.get(i);
+          assertEquals(GeohashUtils.longToGeohash(ranges[i * 2], 5), range[0]);
+          assertTrue(range[1] == null || range[0].compareTo(range[1]) < 0);
+        }
+      }
+    }
+    assertEquals(Arrays.asList(0L, 1L << 10), asList(GeohashUtils.coverRanges(ctx.makeRectangle(-10, 10, -10, 10), 2, 1, 1)));
+    long key = GeohashUtils.geohashToLong("ezs42");
+    assertEquals(Arrays.asList(key, key + 1), asList(GeohashUtils.coverRanges(ctx.makePoint(-5.6, 42.6), 5, 100, 10)));
+    assertEquals("ezs43", GeohashUtils.coverGeohashRanges(ctx.makePoint(-5.6, 42.6), 5, 100, 10).get(0)[1]);
+  }
+
+  private static boolean inRanges(long[] ranges, long key) {
+    for (int i = 0; i < ranges.length; i += 2) {
+      if (ranges[i] <= key && key < ranges[i + 1])
+        return true;
+    }
+    return false;
+  }
+
+  private static List<Long> asList(long[] values) {
+    List<Long> list = new ArrayList<Long>(values.length);
+    for (long value : values)
+      list.add(value);
+    return list;
+  }
+
+  /** Asserts the cells don't overlap and that the shape's points (sampled) are in some cell. */
+  private void assertCovers(Shape shape, List<String> cells, int maxLevel) {
+    for (int i = 0; i < cells.size(); i++) {
+      assertTrue(cells.get(i).length() <= maxLevel);
+      for (int j = 0; j < cells.size(); j++)
+        assertFalse(i != j && cells.get(j).startsWith(cells.get(i)));
+    }
+    Rectangle bbox = shape.getBoundingBox();
+    double width = bbox.getWidth(), height = bbox.getHeight();
+    for (int xi = 0; xi <= 20; xi++) {
+      for (int yi = 0; yi <= 20; yi++) {
+        double x = DistanceUtils.normLonDEG(bbox.getMinX() + width * xi / 20);
+        Point point = ctx.makePoint(x, bbox.getMinY() + height * yi / 20);
+        if (shape.relate(point) == SpatialRelation.DISJOINT)
+          continue;
+        String hash = GeohashUtils.encodeLatLon(point.getY(), point.getX(), maxLevel);
+        boolean found = false;
+        for (String cell : cells)
+          found |= hash.startsWith(cell);
+        assertTrue(point + " not in " + cells, found);
+      }
+    }
+  }
 }
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.sfc;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.context.SpatialContextFactory;
+import com.spatial4j.core.shape.Point;
+import com.spatial4j.core.shape.RandomizedShapeTest;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.SpatialRelation;
+import com.spatial4j.core.shape.impl.RectangleImpl;
+import org.junit.Test;
+
+public class SpaceFillingCurveTest extends RandomizedShapeTest {
+
+  @Test
+  public void testEncodeDecode() {
+    ctx = SpatialContext.GEO;
+    for (SpaceFillingCurve curve : curves(randomIntBetween(1, 6))) {
+      int numCells = 1 << curve.getBits();
+      boolean[] seen = new boolean[(int) curve.getNumKeys()];
+      long prevColRow = -1;
+      for (long key = 0; key < curve.getNumKeys(); key++) {
+        long colRow = curve.decodeCell(key);
+        long col = colRow >>> 32, row = colRow & 0xFFFFFFFFL;
+        assertTrue(col < numCells && row < numCells);
+        assertEquals(key, curve.encodeCell(col, row));
+        assertFalse(seen[(int) (col * numCells + row)]);
+        seen[(int) (col * numCells + row)] = true;
+        if (curve instanceof HilbertCurve && prevColRow != -1) {//consecutive keys are adjacent
+          long dist = Math.abs(col - (prevColRow >>> 32)) + Math.abs(row - (prevColRow & 0xFFFFFFFFL));
+          assertEquals(1, dist);
+        }
+        prevColRow = colRow;
+
+        Rectangle cell = curve.decode(key, null);
+        assertEquals(key, curve.encode(cell.getCenter()));
+      }
+    }
+    //the Z-order interleaves bits, the column first
+    ZOrderCurve zOrder = new ZOrderCurve(ctx, 2);
+    assertEquals(0b1001, zOrder.encodeCell(0b01, 0b10));
+  }
+
+  @Test
+  public void testEncodeBatch() {
+    ctx = SpatialContext.GEO;
+    for (SpaceFillingCurve curve : curves(SpaceFillingCurve.MAX_BITS)) {
+      double[] xs = new double[100], ys = new double[100];
+      for (int i = 0; i < xs.length; i++) {
+        Point p = randomPoint();
+        xs[i] = p.getX();
+        ys[i] = p.getY();
+      }
+      long[] keys = curve.encode(xs, ys, null);
+      for (int i = 0; i < xs.length; i++) {
+        assertEquals(curve.encode(xs[i], ys[i]), keys[i]);
+        Rectangle cell = curve.decode(keys[i], null);
+        assertEquals(SpatialRelation.CONTAINS, cell.relate(ctx.makePoint(xs[i], ys[i])));
+      }
+    }
+  }
+
+  @Test
+  public void testRanges() {
+    ctx = randomBoolean() ? SpatialContext.GEO : new SpatialContextFactory()
+      {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+    for (int iter = 0; iter < atLeast(20); iter++) {
+      int bits = randomIntBetween(1, 6);
+      Rectangle query = randomRectangle((Point) null);
+      int maxCells = randomIntBetween(1, 200);
+      int maxRanges = randomBoolean() ? Integer.MAX_VALUE : randomIntBetween(1, 10);
+      for (SpaceFillingCurve curve : curves(bits)) {
+        long[] ranges = curve.ranges(query, maxCells, maxRanges);
+        assertTrue(ranges.length > 0 && ranges.length / 2 <= maxRanges);
+        for (int i = 1; i < ranges.length; i++)
+          assertTrue(ranges[i - 1] < ranges[i]);//sorted, not empty, and not adjacent
+        //every cell intersecting the query is in a range
+        long numInRanges = 0;
+        for (long key = 0; key < curve.getNumKeys(); key++) {
+          boolean inRanges = inRanges(ranges, key);
+          if (inRanges)
+            numInRanges++;
+          if (query.relate(curve.decode(key, null)).intersects() && interiorIntersects(query, curve, key))
+            assertTrue(curve + " " + query + " " + key, inRanges);
+        }
+        if (maxCells >= curve.getNumKeys() && maxRanges == Integer.MAX_VALUE) {//then exact
+          long numIntersecting = 0;
+          for (long key = 0; key < curve.getNumKeys(); key++) {
+            if (inQueryCells(query, curve, key))
+              numIntersecting++;
+          }
+          assertEquals(numIntersecting, numInRanges);
+        }
+      }
+    }
+  }
+
+  /** Whether the cell's center is in the query, which is conclusive, unlike touching the query. */
+  private boolean interiorIntersects(Rectangle query, SpaceFillingCurve curve, long key) {
+    Point center = curve.decode(key, null).getCenter();
+    return query.relate(center) != SpatialRelation.DISJOINT;
+  }
+
+  /** Whether the cell is one that the query's corners, encoded, span. */
+  private boolean inQueryCells(Rectangle query, SpaceFillingCurve curve, long key) {
+    long colRow = curve.decodeCell(key);
+    long col = colRow >>> 32, row = colRow & 0xFFFFFFFFL;
+    long minColRow = curve.decodeCell(curve.encode(query.getMinX(), query.getMinY()));
+    long maxColRow = curve.decodeCell(curve.encode(query.getMaxX(), query.getMaxY()));
+    long minCol = minColRow >>> 32, maxCol = maxColRow >>> 32;
+    boolean inCols = query.getCrossesDateLine() ? (col >= minCol || col <= maxCol) : (col >= minCol && col <= maxCol);
+    return inCols && row >= (minColRow & 0xFFFFFFFFL) && row <= (maxColRow & 0xFFFFFFFFL);
+  }
+
+  private static boolean inRanges(long[] ranges, long key) {
+    for (int i = 0; i < ranges.length; i += 2) {
+      if (ranges[i] <= key && key < ranges[i + 1])
+        return true;
+    }
+    return false;
+  }
+
+  @Test
+  public void testBigMinLitMax() {
+    ctx = SpatialContext.GEO;
+    int bits = randomIntBetween(1, 4);
+    ZOrderCurve curve = new ZOrderCurve(ctx, bits);
+    int numCells = 1 << bits;
+    for (int iter = 0; iter < atLeast(50); iter++) {
+      int minCol = randomInt(numCells - 1), maxCol = randomIntBetween(minCol, numCells - 1);
+      int minRow = randomInt(numCells - 1), maxRow = randomIntBetween(minRow, numCells - 1);
+      long minKey = curve.encodeCell(minCol, minRow), maxKey = curve.encodeCell(maxCol, maxRow);
+      for (long key = 0; key < curve.getNumKeys(); key++) {
+        long expectedBigMin = -1, expectedLitMax = -1;
+        for (long k = key; k < curve.getNumKeys() && expectedBigMin == -1; k++) {
+          if (inBox(curve, k, minCol, maxCol, minRow, maxRow))
+            expectedBigMin = k;
+        }
+        for (long k = key; k >= 0 && expectedLitMax == -1; k--) {
+          if (inBox(curve, k, minCol, maxCol, minRow, maxRow))
+            expectedLitMax = k;
+        }
+        assertEquals(expectedBigMin, curve.bigMin(key, minKey, maxKey));
+        assertEquals(expectedLitMax, curve.litMax(key, minKey, maxKey));
+      }
+    }
+  }
+
+  private static boolean inBox(ZOrderCurve curve, long key, int minCol, int maxCol, int minRow, int maxRow) {
+    long colRow = curve.decodeCell(key);
+    long col = colRow >>> 32, row = colRow & 0xFFFFFFFFL;
+    return col >= minCol && col <= maxCol && row >= minRow && row <= maxRow;
+  }
+
+  private SpaceFillingCurve[] curves(int bits) {
+    return new SpaceFillingCurve[]{new ZOrderCurve(ctx, bits), new HilbertCurve(ctx, bits)};
+  }
+}
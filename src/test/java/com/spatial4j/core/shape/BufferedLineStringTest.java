@@ -59,4 +59,31 @@ public class BufferedLineStringTest extends RandomizedTest {
     }.testRelateWithRectangle();
   }
 
+  @Test
+  public void testIndexedSegments() {
+    //a long random walk, so that the segments are indexed
+    int numPoints = ShapeCollection.DEFAULT_INDEX_THRESHOLD + randomInt(1000);
+    List<Point> points = new ArrayList<Point>(numPoints);
+    double x = 0, y = 0;
+    while (points.size() < numPoints) {
+      x = Math.max(-90, Math.min(90, x + randomDoubleBetween(-2, 2)));
+      y = Math.max(-40, Math.min(40, y + randomDoubleBetween(-2, 2)));
+      points.add(ctx.makePoint(x, y));
+    }
+    BufferedLineString line = new BufferedLineString(points, randomInt(3), ctx);
+    //same segments, not indexed
+    ShapeCollection<?> segments = new ShapeCollection<Shape>(
+        new ArrayList<Shape>(line.getSegments().getShapes()), ctx, Integer.MAX_VALUE);
+    for (int i = 0; i < 100; i++) {
+      double minX = randomDoubleBetween(-100, 95), minY = randomDoubleBetween(-50, 45);
+      Rectangle r = ctx.makeRectangle(minX, randomDoubleBetween(minX, Math.min(100, minX + 20)),
+          minY, randomDoubleBetween(minY, Math.min(50, minY + 20)));
+      assertEquals(r.toString(), segments.relate(r), line.relate(r));
+    }
+  }
+
+  private double randomDoubleBetween(double min, double max) {
+    return min + randomDouble() * (max - min);
+  }
+
 }
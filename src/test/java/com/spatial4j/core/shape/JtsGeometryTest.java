@@ -24,6 +24,8 @@ import com.spatial4j.core.context.jts.JtsSpatialContextFactory;
 import com.spatial4j.core.io.jts.JtsWKTReader;
 import com.spatial4j.core.shape.impl.PointImpl;
 import com.spatial4j.core.shape.jts.JtsGeometry;
+import com.spatial4j.core.shape.jts.JtsPointGrid;
+import com.spatial4j.core.shape.jts.JtsPreparedQuery;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.CoordinateFilter;
 import com.vividsolutions.jts.geom.Geometry;
@@ -247,6 +249,272 @@ public class JtsGeometryTest extends AbstractTestShapes {
     }
   }
 
+  @Test
+  public void testPreparedQuery() {
+    JtsSpatialContext ctx = (JtsSpatialContext) this.ctx;
+    for (JtsGeometry query : new JtsGeometry[]{POLY_SHAPE, POLY_SHAPE_DL}) {
+      //a copy of the query that relates via a PreparedGeometry too
+      JtsGeometry indexed = ctx.makeShape(query.getGeom(), false, true);
+      indexed.index();
+      PreparedQuery prepared = ctx.prepareQuery(query);
+      assertTrue(prepared instanceof JtsPreparedQuery);
+      assertSame(query, prepared.getQuery());
+
+      Shape[] candidates = new Shape[100];
+      for (int i = 0; i < candidates.length; i++) {
+        Point nearP = randomPointIn(query.getBoundingBox());
+        switch (randomInt(3)) {
+          case 0: candidates[i] = nearP; break;
+          case 1: candidates[i] = randomRectangle(nearP); break;
+          case 2: candidates[i] = ctx.makeCircle(nearP, randomInt(20)); break;
+          default: candidates[i] = ctx.makeShape(ctx.getGeometryFrom(randomRectangle(nearP)));
+        }
+      }
+      SpatialRelation[] out = new SpatialRelation[candidates.length];
+      prepared.relate(candidates, out);
+      for (int i = 0; i < candidates.length; i++) {
+        assertEquals(candidates[i].toString(), indexed.relate(candidates[i]), out[i]);
+        assertEquals(candidates[i].toString(), out[i], prepared.relate(candidates[i]));//again; geometries are reused
+      }
+    }
+  }
+
+  @Test
+  public void testRelateCircle() throws Exception {
+    JtsGeometry withHole = (JtsGeometry) ctx.readShapeFromWkt(
+        "POLYGON((0 0, 30 0, 30 30, 0 30, 0 0), (10 10, 20 10, 20 20, 10 20, 10 10))");
+    JtsSpatialContext ctx = (JtsSpatialContext) this.ctx;
+    com.vividsolutions.jts.io.WKTReader jtsReader = new com.vividsolutions.jts.io.WKTReader(ctx.getGeometryFactory());
+    JtsGeometry multi = ctx.makeShape(jtsReader.read(
+        "MULTIPOLYGON(((170 -10, 179 -10, 179 10, 170 10, 170 -10)), ((-179 -10, -170 -10, -170 10, -179 10, -179 -10)))"));
+    JtsGeometry line = ctx.makeShape(jtsReader.read("LINESTRING(175 0, -175 5, -170 -5)"));
+    for (JtsGeometry geom : new JtsGeometry[]{POLY_SHAPE, POLY_SHAPE_DL, withHole, multi, line}) {
+      for (int i = 0; i < 200; i++) {
+        Point center;
+        if (randomInt(3) == 0)//near the dateline
+          center = ctx.makePoint(randomBoolean() ? 180 - randomInt(20) : -180 + randomInt(20), randomInt(40) - 20);
+        else
+          center = randomPointIn(geom.getBoundingBox());
+        Circle circle = ctx.makeCircle(center, randomInt(60));
+        assertEquals(geom + " " + circle, relateCircleOracle(geom, circle), geom.relate(circle));
+      }
+    }
+    //wholly within the hole
+    assertRelation(SpatialRelation.DISJOINT, withHole, ctx.makeCircle(15, 15, 2));
+    assertEquals(SpatialRelation.DISJOINT, relateCircleOracle(withHole, ctx.makeCircle(15, 15, 2)));
+    //between the dateline pieces, and far away
+    assertRelation(SpatialRelation.DISJOINT, multi, ctx.makeCircle(180, 0, 0.5));
+    assertRelation(SpatialRelation.DISJOINT, multi, ctx.makeCircle(0, 0, 10));
+    //covering both dateline pieces
+    assertRelation(SpatialRelation.WITHIN, multi, ctx.makeCircle(180, 0, 30));
+  }
+
+  /**
+   * The relation relate(Circle) should find, computed independently of it: every vertex is related
+   * to the circle as a point, without a short-circuit or the bounding box test, and if none is
+   * inside then the center is related to the geometry as a point with JTS.
+   */
+  private SpatialRelation relateCircleOracle(JtsGeometry geom, Circle circle) {
+    int inside = 0;
+    int outside = 0;
+    for (Coordinate coord : geom.getGeom().getCoordinates()) {
+      if (circle.relate(new PointImpl(coord.x, coord.y, ctx)) == SpatialRelation.DISJOINT)
+        outside++;
+      else
+        inside++;
+    }
+    if (inside > 0)
+      return outside > 0 ? SpatialRelation.INTERSECTS : SpatialRelation.WITHIN;
+    Point center = circle.getCenter();
+    JtsGeometry unindexed = ((JtsSpatialContext) ctx).makeShape(geom.getGeom(), false, true);
+    return unindexed.relate(center) == SpatialRelation.DISJOINT ? SpatialRelation.DISJOINT : SpatialRelation.CONTAINS;
+  }
+
+  @Test
+  public void testAutoIndexByRelateCount() throws ParseException {
+    JtsSpatialContextFactory factory = new JtsSpatialContextFactory();
+    factory.geo = true;
+    factory.autoIndexRelateCount = 3;
+    JtsSpatialContext ctx = factory.newSpatialContext();
+    JtsGeometry shape = (JtsGeometry) ctx.readShapeFromWkt(POLY_STR);
+    Rectangle farAway = ctx.makeRectangle(100, 110, 0, 10);//doesn't count; the bbox is disjoint
+    Rectangle inside = ctx.makeRectangle(-16, -14, 9, 11);//within bbox, so JTS is needed
+    assertEquals(DISJOINT, shape.relate(farAway));
+    assertEquals(DISJOINT, shape.relate(farAway));
+    assertEquals(DISJOINT, shape.relate(farAway));
+    assertFalse(shape.isIndexed());
+    assertEquals(CONTAINS, shape.relate(inside));
+    assertEquals(CONTAINS, shape.relate(inside));
+    assertFalse(shape.isIndexed());
+    assertEquals(CONTAINS, shape.relate(inside));
+    assertTrue(shape.isIndexed());
+    assertEquals(CONTAINS, shape.relate(inside));
+  }
+
+  @Test
+  public void testAutoIndexByPointCount() throws ParseException {
+    JtsSpatialContextFactory factory = new JtsSpatialContextFactory();
+    factory.geo = true;
+    factory.autoIndexPointCount = 5;
+    JtsSpatialContext ctx = factory.newSpatialContext();
+    JtsGeometry big = (JtsGeometry) ctx.readShapeFromWkt(POLY_STR);//6 points
+    JtsGeometry small = (JtsGeometry) ctx.readShapeFromWkt("POLYGON((0 0, 10 0, 5 5, 0 0))");//4 points
+    assertFalse(big.isIndexed());
+    assertEquals(CONTAINS, big.relate(ctx.makePoint(-15, 10)));
+    assertTrue(big.isIndexed());
+    assertEquals(CONTAINS, small.relate(ctx.makePoint(5, 1)));
+    assertFalse(small.isIndexed());
+  }
+
+  @Test
+  public void testAutoIndexConcurrently() throws Exception {
+    JtsSpatialContextFactory factory = new JtsSpatialContextFactory();
+    factory.geo = true;
+    factory.autoIndexRelateCount = randomIntBetween(1, 100);
+    JtsSpatialContext ctx = factory.newSpatialContext();
+    final JtsGeometry shared = (JtsGeometry) ctx.readShapeFromWkt(POLY_STR);
+    JtsGeometry indexed = ctx.makeShape(shared.getGeom(), false, true);
+    indexed.index();
+    JtsGeometry unindexed = JtsSpatialContext.GEO.makeShape(shared.getGeom(), false, true);
+
+    //(random data must be generated on this thread)
+    final Shape[] candidates = new Shape[500];
+    final SpatialRelation[] expected = new SpatialRelation[candidates.length];
+    final SpatialRelation[] expectedUnindexed = new SpatialRelation[candidates.length];
+    for (int i = 0; i < candidates.length; i++) {
+      Point nearP = randomPointIn(shared.getBoundingBox());
+      candidates[i] = randomBoolean() ? nearP : randomRectangle(nearP);
+      expected[i] = indexed.relate(candidates[i]);
+      expectedUnindexed[i] = unindexed.relate(candidates[i]);
+    }
+    final SpatialRelation[][] actual = new SpatialRelation[4][candidates.length];
+    Thread[] threads = new Thread[actual.length];
+    for (int t = 0; t < threads.length; t++) {
+      final SpatialRelation[] out = actual[t];
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < candidates.length; i++)
+            out[i] = shared.relate(candidates[i]);
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads)
+      thread.join();
+    //JTS's PreparedGeometry can differ in boundary cases, and some threads relate before it's indexed
+    for (SpatialRelation[] out : actual) {
+      for (int i = 0; i < candidates.length; i++) {
+        if (out[i] != expected[i])
+          assertEquals(candidates[i].toString(), expectedUnindexed[i], out[i]);
+      }
+    }
+    assertTrue(shared.isIndexed());
+  }
+
+  @Test
+  public void testIndexedConcurrently() throws Exception {
+    JtsSpatialContextFactory factory = new JtsSpatialContextFactory();
+    factory.normWrapLongitude = true;//for Russia
+    JtsSpatialContext ctx = factory.newSpatialContext();
+    JtsGeometry russia = ctx.makeShape(new com.vividsolutions.jts.io.WKTReader(ctx.getGeometryFactory())
+        .read(readFirstLineFromRsrc("/russia.wkt.txt")), true, true);
+    final JtsGeometry[] geoms = {russia, POLY_SHAPE,
+        (JtsGeometry) ctx.readShapeFromWkt("LINESTRING(0 0, 10 10, 20 0, 30 10, 40 0)")};
+    //(random data must be generated on this thread)
+    final Shape[] candidates = new Shape[300];
+    final SpatialRelation[][] expected = new SpatialRelation[geoms.length][candidates.length];
+    for (int i = 0; i < candidates.length; i++) {
+      //near a vertex, so that segments are tested for intersection
+      Coordinate[] coords = geoms[i % geoms.length].getGeom().getCoordinates();
+      Coordinate c = coords[randomInt(coords.length - 1)];
+      Point nearP = ctx.makePoint(normX(c.x), c.y);
+      candidates[i] = randomInt(3) == 0 ? nearP : randomRectangle(nearP);
+    }
+    for (int g = 0; g < geoms.length; g++) {
+      //unshared, so that it is independent of the geometry's indexes
+      JtsGeometry copy = ctx.makeShape(geoms[g].getGeom(), false, true);
+      copy.index();
+      for (int i = 0; i < candidates.length; i++)
+        expected[g][i] = copy.relate(candidates[i]);
+      geoms[g].index();
+    }
+    final SpatialRelation[][][] actual = new SpatialRelation[4][geoms.length][candidates.length];
+    Thread[] threads = new Thread[actual.length];
+    for (int t = 0; t < threads.length; t++) {
+      final SpatialRelation[][] out = actual[t];
+      final int offset = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int rep = 0; rep < 10; rep++) {
+            for (int i = 0; i < candidates.length; i++) {
+              //threads relate different geometries at the same time
+              int g = (i + offset) % geoms.length;
+              out[g][i] = geoms[g].relate(candidates[i]);
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads)
+      thread.join();
+    for (SpatialRelation[][] out : actual) {
+      for (int g = 0; g < geoms.length; g++) {
+        for (int i = 0; i < candidates.length; i++) {
+          if (out[g][i] != null)
+            assertEquals(candidates[i].toString(), expected[g][i], out[g][i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPointGrid() throws Exception {
+    JtsSpatialContextFactory factory = new JtsSpatialContextFactory();
+    factory.normWrapLongitude = true;//for Russia
+    JtsSpatialContext ctx = factory.newSpatialContext();
+    //a big MultiPolygon crossing the dateline
+    JtsGeometry russia = ctx.makeShape(new com.vividsolutions.jts.io.WKTReader(ctx.getGeometryFactory())
+        .read(readFirstLineFromRsrc("/russia.wkt.txt")), true, true);
+    JtsGeometry[] geoms = {POLY_SHAPE, POLY_SHAPE_DL, russia,
+        (JtsGeometry) ctx.readShapeFromWkt("POLYGON((0 0, 30 0, 30 30, 0 30, 0 0), (10 10, 20 10, 20 20, 10 20, 10 10))"),
+        (JtsGeometry) ctx.readShapeFromWkt("LINESTRING(0 0, 10 10, 20 0)")};
+    for (JtsGeometry geom : geoms) {
+      JtsGeometry expectedGeom = ctx.makeShape(geom.getGeom(), false, true);
+      expectedGeom.index();
+      JtsGeometry gridGeom = ctx.makeShape(geom.getGeom(), false, true);
+      gridGeom.buildPointGrid(randomBoolean() ? JtsPointGrid.DEFAULT_MAX_CELLS : randomIntBetween(1, 1000));
+      JtsPointGrid grid = gridGeom.getPointGrid();
+      assertNotNull(grid);
+      assertTrue(grid.getNumBoundaryCells() <= (long) grid.getColumns() * grid.getRows());
+      assertTrue(grid.ramBytesUsed() > 0);
+
+      Coordinate[] coords = geom.getGeom().getCoordinates();
+      for (int i = 0; i < 2000; i++) {
+        Point pt;
+        switch (randomInt(2)) {
+          case 0: {//a vertex
+            Coordinate c = coords[randomInt(coords.length - 1)];
+            pt = ctx.makePoint(c.x, c.y);
+            break;
+          }
+          case 1: {//on an edge (roughly)
+            int j = randomInt(coords.length - 2);
+            double frac = randomDouble();
+            pt = ctx.makePoint(coords[j].x + (coords[j + 1].x - coords[j].x) * frac,
+                coords[j].y + (coords[j + 1].y - coords[j].y) * frac);
+            break;
+          }
+          default:
+            pt = randomPointIn(geom.getBoundingBox());
+        }
+        assertEquals(pt.toString(), expectedGeom.relate(pt), gridGeom.relate(pt));
+      }
+    }
+  }
+
   @Test
   public void testNarrowGeometryCollection() {
     // test points
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.context.SpatialContextFactory;
+import com.spatial4j.core.io.BinaryCodec;
+import com.spatial4j.core.shape.impl.MultiPoint;
+import com.spatial4j.core.shape.impl.RectangleImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MultiPointTest extends RandomizedShapeTest {
+
+  @Test
+  public void testGeoRelate() {
+    ctx = SpatialContext.GEO;
+    doTestRelateMatchesShapeCollection();
+  }
+
+  @Test
+  public void testFlatRelate() {
+    ctx = new SpatialContextFactory()
+      {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+    doTestRelateMatchesShapeCollection();
+  }
+
+  private void doTestRelateMatchesShapeCollection() {
+    for (int iter = 0; iter < atLeast(20); iter++) {
+      int n = randomInt(200);
+      double[] xs = new double[n];
+      double[] ys = new double[n];
+      Point nearP = randomPoint();
+      for (int i = 0; i < n; i++) {
+        Point p = randomBoolean() ? randomPointIn(randomRectangle(nearP)) : randomPoint();
+        if (ctx.isGeo() && randomInt(10) == 0)
+          p = ctx.makePoint(randomBoolean() ? -180 : 180, p.getY());
+        xs[i] = p.getX();
+        ys[i] = p.getY();
+      }
+      MultiPoint multiPoint = new MultiPoint(xs, ys, randomBoolean(), ctx);
+      //the points, maybe reordered by x
+      List<Point> points = new ArrayList<Point>(multiPoint.getShapes());
+      ShapeCollection<Point> collection = new ShapeCollection<Point>(points, ctx, Integer.MAX_VALUE);
+      assertEquals(collection, multiPoint);
+      assertEquals(collection.hashCode(), multiPoint.hashCode());
+      for (Point point : points) {
+        assertRelation("bbox", SpatialRelation.CONTAINS, multiPoint.getBoundingBox(), point);
+      }
+
+      for (int q = 0; q < 50; q++) {
+        Shape other;
+        switch (randomInt(3)) {
+          case 0: other = randomRectangle(nearP); break;
+          case 1: other = n > 0 ? points.get(randomInt(n - 1)) : randomPoint(); break;
+          case 2://the dateline
+            other = ctx.isGeo() ? ctx.makeRectangle(180, 180, -90, 90) : randomRectangle(nearP); break;
+          default: {
+            Point center = randomPointIn(ctx.isGeo() ? ctx.getWorldBounds() : ctx.makeRectangle(-80, 80, -30, 30));
+            other = ctx.makeCircle(center, randomDouble() * (ctx.isGeo() ? 60 : 20));
+          }
+        }
+        assertEquals(multiPoint + " " + other, collection.relate(other), multiPoint.relate(other));
+      }
+    }
+  }
+
+  @Test
+  public void testReadWrite() throws IOException, ParseException {
+    ctx = SpatialContext.GEO;
+    MultiPoint multiPoint = ctx.makeMultiPoint(new double[]{10, 40, -180}, new double[]{40, 30, 0});
+    assertEquals(multiPoint, ctx.readShapeFromWkt("MULTIPOINT (10 40, 40 30, -180 0)"));
+    assertEquals(multiPoint, ctx.readShapeFromWkt(ctx.getFormats().getWktWriter().toString(multiPoint)));
+    assertEquals(multiPoint, ctx.getFormats().getGeoJsonReader().read(
+        ctx.getFormats().getGeoJsonWriter().toString(multiPoint)));
+
+    BinaryCodec codec = ctx.getBinaryCodec();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    codec.writeShape(new DataOutputStream(bytes), multiPoint);
+    Shape decoded = codec.readShape(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertTrue(decoded instanceof MultiPoint);
+    assertEquals(multiPoint, decoded);
+
+    MultiPoint empty = ctx.makeMultiPoint(new double[0], new double[0]);
+    assertTrue(empty.isEmpty());
+    assertEquals(empty, ctx.readShapeFromWkt(ctx.getFormats().getWktWriter().toString(empty)));
+  }
+
+  @Test
+  public void testGeoBoundingBox() {
+    ctx = SpatialContext.GEO;
+    //the widest gap is across 0, not the dateline
+    Rectangle bbox = ctx.makeMultiPoint(new double[]{170, -170, 175}, new double[]{0, 10, -5}).getBoundingBox();
+    assertEquals(ctx.makeRectangle(170, -170, -5, 10), bbox);
+    //+180 and -180 are the same
+    bbox = ctx.makeMultiPoint(new double[]{180, -180}, new double[]{0, 0}).getBoundingBox();
+    assertEquals(0, bbox.getWidth(), 0);
+  }
+}
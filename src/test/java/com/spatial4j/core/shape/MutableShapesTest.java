@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.context.SpatialContextFactory;
+import com.spatial4j.core.shape.impl.BufferedLine;
+import com.spatial4j.core.shape.impl.RectangleImpl;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Tests that re-using shapes via their reset() methods and relating them doesn't allocate.
+ */
+public class MutableShapesTest extends RandomizedShapeTest {
+
+  private static final int NUM_QUERIES = 2000;
+
+  @Test
+  public void testGeoNoAllocation() {
+    ctx = SpatialContext.GEO;
+    doTestNoAllocation();
+  }
+
+  @Test
+  public void testFlatNoAllocation() {
+    ctx = new SpatialContextFactory()
+      {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+    doTestNoAllocation();
+  }
+
+  private void doTestNoAllocation() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue("thread allocation counting is unsupported",
+        bean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+            && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled());
+    com.sun.management.ThreadMXBean allocBean = (com.sun.management.ThreadMXBean) bean;
+    long threadId = Thread.currentThread().getId();
+
+    //pre-compute everything random, since generating it allocates
+    Shape[] targets = new Shape[20];
+    for (int i = 0; i < targets.length; i++)
+      targets[i] = randomBoolean() ? randomPoint() : randomRectangle(randomPoint());
+    double[] xs = new double[NUM_QUERIES * 2];
+    double[] ys = new double[NUM_QUERIES * 2];
+    double[] dists = new double[NUM_QUERIES];
+    Rectangle worldBounds = ctx.getWorldBounds();
+    for (int i = 0; i < xs.length; i++) {
+      Point p = randomPointIn(worldBounds);
+      xs[i] = p.getX();
+      ys[i] = p.getY();
+    }
+    for (int i = 0; i < dists.length; i++)
+      dists[i] = ctx.isGeo() ? randomInt(180) : randomInt(20);//geo sometimes > 90; has an inverse circle
+
+    Point point = ctx.makePoint(0, 0);
+    Rectangle rect = ctx.makeRectangle(0, 0, 0, 0);
+    Circle circle = ctx.makeCircle(0, 0, 1);
+    BufferedLine line = new BufferedLine(ctx.makePoint(0, 0), ctx.makePoint(0, 0), 1, ctx);
+
+    //the 1st pass may allocate (e.g. lazily initialized state)
+    int sum = relateQueries(targets, xs, ys, dists, point, rect, circle, line);
+    long before = allocBean.getThreadAllocatedBytes(threadId);
+    sum += relateQueries(targets, xs, ys, dists, point, rect, circle, line);
+    long allocated = allocBean.getThreadAllocatedBytes(threadId) - before;
+    assertTrue(sum > 0);//use the result
+    //even one small object per query would be much more than this
+    assertTrue("allocated " + allocated + " bytes", allocated < NUM_QUERIES);
+  }
+
+  private int relateQueries(Shape[] targets, double[] xs, double[] ys, double[] dists,
+                            Point point, Rectangle rect, Circle circle, BufferedLine line) {
+    int sum = 0;
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      double x1 = xs[i * 2], y1 = ys[i * 2];
+      double x2 = xs[i * 2 + 1], y2 = ys[i * 2 + 1];
+      point.reset(x1, y1);
+      rect.reset(Math.min(x1, x2), Math.max(x1, x2), Math.min(y1, y2), Math.max(y1, y2));
+      circle.reset(x1, y1, dists[i]);
+      line.reset(x1, y1, x2, y2, dists[i] / 10);
+      for (Shape target : targets) {
+        sum += point.relate(target).ordinal();
+        sum += rect.relate(target).ordinal();
+        sum += circle.relate(target).ordinal();
+        sum += line.relate(target).ordinal();
+        sum += target.relate(circle).ordinal();
+        sum += target.relate(line).ordinal();
+      }
+    }
+    return sum;
+  }
+}
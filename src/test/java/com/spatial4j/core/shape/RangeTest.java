@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.spatial4j.core.shape;
+
+import com.spatial4j.core.shape.impl.Range;
+import com.spatial4j.core.shape.impl.Range.LongitudeRange;
+import org.junit.Test;
+
+public class RangeTest extends RandomizedShapeTest {
+
+  @Test
+  public void testLongitudeExpandToEqual() {
+    LongitudeRange r = new LongitudeRange(0, 10);
+    assertEquals(r, r.expandTo(new LongitudeRange(0, 10)));
+    LongitudeRange dl = new LongitudeRange(170, -170);
+    assertEquals(dl, dl.expandTo(new LongitudeRange(170, -170)));
+    assertEquals(dl, dl.expandTo((Range) new LongitudeRange(175, -175)));
+    assertEquals(dl, new LongitudeRange(175, -175).expandTo(dl));
+    assertSame(LongitudeRange.WORLD_180E180W,
+        new LongitudeRange(-90, 90).expandTo(new LongitudeRange(90, -90)));
+    assertEquals(new LongitudeRange(170, 10), dl.expandTo(new LongitudeRange(-20, 10)));
+  }
+
+  @Test
+  public void testLongitudeExpandTo() {
+    double[] minMax = new double[2];
+    for (int i = 0; i < atLeast(1000); i++) {
+      //whole degrees, so that endpoints are often shared
+      LongitudeRange a = new LongitudeRange(randomIntBetween(-179, 179), randomIntBetween(-179, 179));
+      LongitudeRange b = new LongitudeRange(randomIntBetween(-179, 179), randomIntBetween(-179, 179));
+      LongitudeRange result = a.expandTo(b);
+      String msg = a + " " + b + " -> " + result;
+      assertTrue(msg, covers(result, a));
+      assertTrue(msg, covers(result, b));
+      if (covers(a, b))
+        assertEquals(msg, a, result);
+      else if (covers(b, a))
+        assertEquals(msg, b, result);
+
+      Range.LongitudeRange.expand(a.getMin(), a.getMax(), b.getMin(), b.getMax(), minMax);
+      assertEquals(msg, result, new LongitudeRange(minMax[0], minMax[1]));
+    }
+  }
+
+  /** Whether outer contains every half degree of inner; the ranges are in whole degrees. */
+  private static boolean covers(LongitudeRange outer, LongitudeRange inner) {
+    if (outer.getWidth() == 360)
+      return true;
+    for (int i = 0; i <= inner.getWidth() * 2; i++) {
+      double lon = inner.getMin() + i * 0.5;
+      if (lon > 180)
+        lon -= 360;
+      if (!outer.contains(lon))
+        return false;
+    }
+    return true;
+  }
+}
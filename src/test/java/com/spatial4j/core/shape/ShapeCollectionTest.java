@@ -20,6 +20,7 @@ package com.spatial4j.core.shape;
 import com.spatial4j.core.TestLog;
 import com.spatial4j.core.context.SpatialContext;
 import com.spatial4j.core.context.SpatialContextFactory;
+import com.spatial4j.core.distance.DistanceUtils;
 import com.spatial4j.core.shape.impl.Range;
 import com.spatial4j.core.shape.impl.RectangleImpl;
 import org.junit.Rule;
@@ -28,6 +29,8 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import static com.spatial4j.core.shape.SpatialRelation.CONTAINS;
 
@@ -57,6 +60,64 @@ public class ShapeCollectionTest extends RandomizedShapeTest {
     assertEquals(Range.LongitudeRange.WORLD_180E180W, new Range.LongitudeRange(s.getBoundingBox()));
   }
 
+  @Test
+  public void testBboxOfEqualShapes() {
+    ctx = SpatialContext.GEO;
+    Rectangle r = ctx.makeRectangle(0, 10, -10, 10);
+    ShapeCollection<Rectangle> s = new ShapeCollection<Rectangle>(
+        Arrays.asList(r, ctx.makeRectangle(0, 10, -10, 10)), ctx);
+    assertEquals(r, s.getBoundingBox());
+  }
+
+  @Test
+  public void testBuilder() {
+    for (int iter = 0; iter < atLeast(20); iter++) {
+      ctx = randomBoolean() ? SpatialContext.GEO : new SpatialContextFactory()
+        {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+      ShapeCollection.Builder<Shape> builder = new ShapeCollection.Builder<Shape>(ctx);
+      List<Shape> shapes = new ArrayList<Shape>();
+      int count = randomIntBetween(0, 20);
+      for (int i = 0; i < count; i++) {
+        Shape shape = randomBoolean() ? randomPoint() : randomRectangle((Point) null);
+        shapes.add(shape);
+        assertSame(builder, builder.add(shape));
+      }
+      assertEquals(count, builder.size());
+      ShapeCollection<Shape> built = builder.build();
+      assertEquals(shapes, built.getShapes());
+      assertTrue(builder.isEmpty());
+      //same as computing the bbox after the fact
+      assertEquals(new ShapeCollection<Shape>(shapes, ctx).getBoundingBox(), built.getBoundingBox());
+    }
+  }
+
+  @Test
+  public void testParsersUseNewCollectionBuilder() throws Exception {
+    ctx = new SpatialContext(true) {
+      @Override
+      public <S extends Shape> ShapeCollection.Builder<S> newCollectionBuilder() {
+        return new ShapeCollection.Builder<S>(this) {
+          @Override
+          protected ShapeCollection<S> newCollection(List<S> shapes, Rectangle bbox) {
+            return new MarkedShapeCollection<S>(shapes, ctx, bbox);
+          }
+        };
+      }
+    };
+    Shape shape = ctx.readShapeFromWkt("GEOMETRYCOLLECTION(POINT(160 2), POINT(170 4), POINT(-170 0))");
+    assertTrue(shape instanceof MarkedShapeCollection);
+    assertEquals(ctx.makeRectangle(160, -170, 0, 4), shape.getBoundingBox());
+    assertTrue(ctx.readShapeFromWkt("MULTILINESTRING((0 0, 1 1), (2 2, 3 3))") instanceof MarkedShapeCollection);
+    assertTrue(ctx.getFormats().getGeoJsonReader().read(
+        ctx.getFormats().getGeoJsonWriter().toString(shape)) instanceof MarkedShapeCollection);
+  }
+
+  private static class MarkedShapeCollection<S extends Shape> extends ShapeCollection<S> {
+    MarkedShapeCollection(List<S> shapes, SpatialContext ctx, Rectangle bbox) {
+      super(shapes, ctx, DEFAULT_INDEX_THRESHOLD, null, bbox);
+    }
+  }
+
   @Test
   public void testRectIntersect() {
     SpatialContext ctx = new SpatialContextFactory()
@@ -71,6 +132,135 @@ public class ShapeCollectionTest extends RandomizedShapeTest {
     new ShapeCollectionRectIntersectionTestHelper(ctx).testRelateWithRectangle();
   }
 
+  @Test
+  public void testIndexedRelate() {
+    ctx = SpatialContext.GEO;
+    List<Shape> shapes = new ArrayList<Shape>();
+    int count = randomIntBetween(1, 300);
+    for (int i = 0; i < count; i++) {
+      if (randomInt(3) == 0)
+        shapes.add(randomPoint());
+      else
+        shapes.add(ctx.makeCircle(randomPoint(), randomDouble() * 10));
+    }
+    ShapeCollection<Shape> indexed = new FullRelateShapeCollection(shapes, 1);
+    ShapeCollection<Shape> unindexed = new FullRelateShapeCollection(shapes, Integer.MAX_VALUE);
+    assertNotNull(indexed.getIndex());
+    assertNull(unindexed.getIndex());
+    for (int i = 0; i < 200; i++) {
+      Shape other = randomBoolean() ? randomPoint() : randomRectangle(randomPoint());
+      assertEquals(other.toString(), unindexed.relate(other), indexed.relate(other));
+    }
+  }
+
+  @Test
+  public void testParallel() throws InterruptedException {
+    ctx = SpatialContext.GEO;
+    ForkJoinPool pool = new ForkJoinPool(randomIntBetween(1, 4));
+    try {
+      List<Shape> shapes = new ArrayList<Shape>();
+      int count = randomIntBetween(ShapeCollection.MIN_PARALLEL_SIZE, 2000);
+      boolean withArea = randomBoolean();
+      for (int i = 0; i < count; i++) {
+        if (!withArea || randomInt(3) == 0)
+          shapes.add(randomPoint());
+        else
+          shapes.add(ctx.makeCircle(randomPoint(), randomDouble() * 10));
+      }
+      int indexThreshold = randomBoolean() ? 1 : Integer.MAX_VALUE;
+      ShapeCollection<Shape> serial = new FullRelateShapeCollection(shapes, indexThreshold, null);
+      ShapeCollection<Shape> parallel = new FullRelateShapeCollection(shapes, indexThreshold, pool);
+      assertSame(pool, parallel.getPool());
+
+      for (Shape shape : shapes) {
+        assertRelation("bbox contains shape", CONTAINS, parallel.getBoundingBox(), shape);
+      }
+      assertEquals(serial.hasArea(), parallel.hasArea());
+      assertEquals(serial.getArea(ctx), parallel.getArea(ctx), 0.0001);
+      assertEquals(serial.getBuffered(1, ctx), parallel.getBuffered(1, ctx));
+      for (int i = 0; i < 100; i++) {
+        Shape other = randomBoolean() ? randomPoint() : randomRectangle(randomPoint());
+        assertEquals(other.toString(), serial.relate(other), parallel.relate(other));
+      }
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  @Test
+  public void testComputeMutualDisjoint() throws InterruptedException {
+    ForkJoinPool pool = new ForkJoinPool(randomIntBetween(1, 4));
+    try {
+      for (int iter = 0; iter < atLeast(50); iter++) {
+        ctx = randomBoolean() ? SpatialContext.GEO : new SpatialContextFactory()
+          {{geo = false; worldBounds = new RectangleImpl(-100, 100, -50, 50, null);}}.newSpatialContext();
+        List<Shape> shapes = new ArrayList<Shape>();
+        int count = randomIntBetween(0, randomBoolean() ? 20 : 300);
+        double maxSize = randomBoolean() ? 1 : 10;
+        boolean withEmpty = randomBoolean();
+        for (int i = 0; i < count; i++) {
+          if (withEmpty && randomInt(3) == 0) {//empty members have a NaN bounding box
+            shapes.add(ctx.makePoint(Double.NaN, Double.NaN));
+            continue;
+          }
+          Point p = randomPoint();
+          if (ctx.isGeo() && randomInt(4) == 0)//on or near the dateline
+            p = ctx.makePoint(randomBoolean() ? 180 : -180 + randomDouble() * maxSize, p.getY());
+          switch (randomInt(2)) {
+            case 0: shapes.add(p); break;
+            case 1:
+              if (ctx.isGeo()) {
+                double minX = p.getX();
+                double maxX = DistanceUtils.normLonDEG(minX + randomDouble() * maxSize);
+                double maxY = Math.min(90, p.getY() + randomDouble() * maxSize);
+                shapes.add(ctx.makeRectangle(minX, maxX, p.getY(), maxY));
+              } else {
+                shapes.add(randomRectangle(p));
+              }
+              break;
+            default:
+              if (ctx.isGeo())
+                shapes.add(ctx.makeCircle(p, randomDouble() * maxSize));
+              else
+                shapes.add(p);
+          }
+        }
+
+        boolean expected = true;
+        for (int i = 1; i < shapes.size() && expected; i++) {
+          for (int j = 0; j < i; j++) {
+            if (shapes.get(j).relate(shapes.get(i)).intersects()) {
+              expected = false;
+              break;
+            }
+          }
+        }
+        assertEquals(shapes.toString(), expected, ShapeCollection.computeMutualDisjoint(shapes));
+        assertEquals(shapes.toString(), expected, ShapeCollection.computeMutualDisjoint(shapes, pool));
+      }
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  /** Doesn't short-circuit on CONTAINS so that the result doesn't depend on the order shapes are visited. */
+  private class FullRelateShapeCollection extends ShapeCollection<Shape> {
+    FullRelateShapeCollection(List<Shape> shapes, int indexThreshold) {
+      this(shapes, indexThreshold, null);
+    }
+
+    FullRelateShapeCollection(List<Shape> shapes, int indexThreshold, ForkJoinPool pool) {
+      super(shapes, ShapeCollectionTest.this.ctx, indexThreshold, pool);
+    }
+
+    @Override
+    protected boolean relateContainsShortCircuits() {
+      return false;
+    }
+  }
+
   private class ShapeCollectionRectIntersectionTestHelper extends RectIntersectionTestHelper<ShapeCollection> {
 
     private ShapeCollectionRectIntersectionTestHelper(SpatialContext ctx) {
@@ -86,7 +276,9 @@ public class ShapeCollectionTest extends RandomizedShapeTest {
         //1st 2 are near nearP, the others are anywhere
         shapes.add(randomRectangle( i < 2 ? nearP : null));
       }
-      ShapeCollection shapeCollection = new ShapeCollection<Rectangle>(shapes, ctx);
+      //sometimes index it, even though it's small
+      ShapeCollection shapeCollection = new ShapeCollection<Rectangle>(shapes, ctx,
+          randomBoolean() ? 1 : ShapeCollection.DEFAULT_INDEX_THRESHOLD);
 
       //test shapeCollection.getBoundingBox();
       Rectangle msBbox = shapeCollection.getBoundingBox();
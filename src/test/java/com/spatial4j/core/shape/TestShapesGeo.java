@@ -25,10 +25,15 @@ import com.spatial4j.core.context.jts.JtsSpatialContextFactory;
 import com.spatial4j.core.distance.DistanceCalculator;
 import com.spatial4j.core.distance.DistanceUtils;
 import com.spatial4j.core.distance.GeodesicSphereDistCalc;
+import com.spatial4j.core.distance.NVectorDistCalc;
 import com.spatial4j.core.exception.InvalidShapeException;
+import com.spatial4j.core.shape.impl.NVectorPoint;
+import com.spatial4j.core.shape.impl.PreparedGeoCircle;
+import com.spatial4j.core.shape.impl.PreparedRectangle;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import static com.spatial4j.core.shape.SpatialRelation.CONTAINS;
 import static com.spatial4j.core.shape.SpatialRelation.DISJOINT;
@@ -47,6 +52,7 @@ public class TestShapesGeo extends AbstractTestShapes {
         $(new SpatialContextFactory(){{geo = true; distCalc = new RoundingDistCalc(distCalcL);}}.newSpatialContext()),
         $(new SpatialContextFactory(){{geo = true; distCalc = new RoundingDistCalc(distCalcH);}}.newSpatialContext()),
         $(new SpatialContextFactory(){{geo = true; distCalc = new RoundingDistCalc(distCalcV);}}.newSpatialContext()),
+        $(new SpatialContextFactory(){{geo = true; distCalc = new NVectorDistCalc();}}.newSpatialContext()),
         $(new JtsSpatialContextFactory(){{geo = true; distCalc = new RoundingDistCalc(distCalcH);}}.newSpatialContext()))
     );
   }
@@ -234,4 +240,105 @@ public class TestShapesGeo extends AbstractTestShapes {
     testCircleIntersect();
   }
 
+  @Test
+  public void testNVectorGeoCircle() {
+    SpatialContext nVectorCtx = new SpatialContextFactory(){{geo = true; distCalc = new NVectorDistCalc();}}.newSpatialContext();
+    SpatialContext haversineCtx = SpatialContext.GEO;
+    for (int i = 0; i < atLeast(50); i++) {
+      Point center = randomPoint();
+      double radius = randomBoolean() ? randomDouble() * 180 : randomDouble() * 0.01;
+      Circle circle = nVectorCtx.makeCircle(nVectorCtx.makePoint(center.getX(), center.getY()), radius);
+      assertTrue(circle.getCenter() instanceof NVectorPoint);
+      Circle haversineCircle = haversineCtx.makeCircle(center.getX(), center.getY(), radius);
+      for (int j = 0; j < 100; j++) {
+        Point p = randomBoolean() ? randomPoint()
+            : nVectorCtx.getDistCalc().pointOnBearing(center, radius * randomDouble() * 2, randomDouble() * 360, nVectorCtx, null);
+        Point nVectorP = nVectorCtx.makePoint(p.getX(), p.getY());
+        double dist = haversineCtx.getDistCalc().distance(center, p);
+        if (Math.abs(dist - radius) < 1e-9)
+          continue;//too close to call
+        assertEquals(circle + " " + p, haversineCircle.relate(p), circle.relate(nVectorP));
+        assertEquals(circle + " " + p, haversineCircle.relate(p), circle.relate(p));
+      }
+    }
+  }
+
+  @Test
+  public void testPreparedGeoCircle() {
+    //Not LawOfCosines; it's imprecise enough at short distances to disagree with haversine
+    final DistanceCalculator distCalc = randomFrom(Arrays.<DistanceCalculator>asList(
+        new GeodesicSphereDistCalc.Haversine(), new GeodesicSphereDistCalc.Vincenty(), new NVectorDistCalc()));
+    SpatialContext ctx = new SpatialContextFactory(){{geo = true; this.distCalc = distCalc;}}.newSpatialContext();
+    for (int i = 0; i < atLeast(50); i++) {
+      Point center = randomBoolean() ? randomPoint()
+          : ctx.makePoint(randomFrom(Arrays.asList(-180d, 0d, 180d)), randomFrom(Arrays.asList(-90d, 0d, 89d, 90d)));
+      double radius;
+      switch (randomInt(3)) {
+        case 0: radius = 0; break;
+        case 1: radius = randomDouble() * 0.001; break;
+        default: radius = randomDouble() * 180;
+      }
+      Circle circle = ctx.makeCircle(ctx.makePoint(center.getX(), center.getY()), radius);
+      PreparedGeoCircle prepared = new PreparedGeoCircle(ctx.makePoint(center.getX(), center.getY()), radius, ctx);
+      assertEquals(circle, prepared);
+      for (int j = 0; j < 100; j++) {
+        Point p;
+        switch (randomInt(2)) {
+          case 0: p = randomPoint(); break;
+          case 1: p = randomPointIn(circle.getBoundingBox()); break;
+          default://near the edge
+            double dist = Math.min(180, radius * (1 + (randomDouble() - 0.5) * 1e-10));
+            p = ctx.getDistCalc().pointOnBearing(center, dist, randomDouble() * 360, ctx, null);
+        }
+        assertEquals(circle + " " + p, circle.relate(p), prepared.relate(p));
+      }
+      for (int j = 0; j < 20; j++) {
+        Rectangle r = randomRectangle(randomBoolean() ? center : null);
+        assertEquals(circle + " " + r, circle.relate(r), prepared.relate(r));
+      }
+    }
+  }
+
+  @Test
+  public void testPreparedGeoCircleEquirectangular() {
+    //equirectangular isn't great-circle distance, so it mustn't be prepared with haversine
+    SpatialContext ctx = SpatialContextFactory.makeSpatialContext(
+        Collections.singletonMap("distCalculator", "equirectangular"), getClass().getClassLoader());
+    DistanceCalculator haversine = new GeodesicSphereDistCalc.Haversine();
+    for (int i = 0; i < atLeast(50); i++) {
+      Point center = ctx.makePoint(randomDouble() * 360 - 180, randomDouble() * 160 - 80);
+      //the approximation is used up to 1 degree
+      double radius = randomBoolean() ? 0.5 + randomDouble() * 0.5 : randomDouble() * 90;
+      Circle circle = ctx.makeCircle(ctx.makePoint(center.getX(), center.getY()), radius);
+      PreparedGeoCircle prepared = new PreparedGeoCircle(ctx.makePoint(center.getX(), center.getY()), radius, ctx);
+      for (int j = 0; j < 100; j++) {
+        Point p;
+        if (randomBoolean()) {
+          p = randomPointIn(circle.getBoundingBox());
+        } else {//near the edge, where the approximation and haversine can disagree
+          double dist = radius * (1 + (randomDouble() - 0.5) * 1e-4);
+          p = haversine.pointOnBearing(center, dist, randomDouble() * 360, ctx, null);
+        }
+        assertEquals(circle + " " + p, circle.relate(p), prepared.relate(p));
+      }
+    }
+  }
+
+  @Test
+  public void testPreparedRectangle() {
+    for (int i = 0; i < atLeast(50); i++) {
+      Rectangle rect = randomRectangle(randomBoolean() ? ctx.makePoint(180, 0) : null);
+      PreparedRectangle prepared = new PreparedRectangle(rect, ctx);
+      assertEquals(rect, prepared);
+      for (int j = 0; j < 100; j++) {
+        Point p = randomBoolean() ? randomPoint()
+            : ctx.makePoint(randomFrom(Arrays.asList(-180d, 180d, rect.getMinX(), rect.getMaxX())), rect.getMinY());
+        assertEquals(rect + " " + p, rect.relate(p), prepared.relate(p));
+      }
+    }
+    assertEquals(CONTAINS, new PreparedRectangle(-180, 180, -10, 10, ctx).relate(ctx.makePoint(180, 0)));
+    assertEquals(CONTAINS, new PreparedRectangle(170, -170, -10, 10, ctx).relate(ctx.makePoint(-180, 0)));
+    assertEquals(DISJOINT, new PreparedRectangle(170, -170, -10, 10, ctx).relate(ctx.makePoint(0, 0)));
+  }
+
 }